@@ -0,0 +1,84 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CalculadoraPrimosBenchmark
+ *
+ * Mide el motor de cálculo (CalculadoraPrimos) sin pasar por la caché ni el índice.
+ *
+ * Rangos medidos ("inicio-fin"):
+ * - pequeño:      1 a 10^4
+ * - mediano:      1 a 10^6
+ * - grande:       1 a 10^8
+ * - ventana alta: el último millón antes de 2^31 (muchos primos base, pocos primos)
+ *
+ * Cada rango se mide en throughput (operaciones/s) y en SampleTime, que da los
+ * percentiles de latencia (p50, p90, p99...). El perfil "benchmarks" del pom
+ * agrega -prof gc para ver los bytes asignados por operación.
+ *
+ * Ejecutar: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="CalculadoraPrimosBenchmark"
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculadoraPrimosBenchmark {
+
+    @Param({"1-10000", "1-1000000", "1-100000000", "2146483648-2147483647"})
+    private String rango;
+
+    private int inicio;
+    private int fin;
+    private CalculadoraPrimos calculadora;
+
+    @Setup
+    public void preparar() {
+        String[] partes = rango.split("-");
+        inicio = Integer.parseInt(partes[0]);
+        fin = Integer.parseInt(partes[1]);
+        calculadora = new CalculadoraPrimos();
+    }
+
+    //API de compatibilidad: lista de Integer (un objeto por primo)
+    @Benchmark
+    public List<Integer> calcularPrimos() {
+        return calculadora.calcularPrimos(inicio, fin);
+    }
+
+    //Resultado compacto que usa la caché
+    @Benchmark
+    public ConjuntoPrimos calcularConjunto() {
+        return calculadora.calcularConjunto(inicio, fin);
+    }
+
+    //Streaming bloque por bloque, sin guardar los primos
+    @Benchmark
+    public long recorrerPrimos() {
+        long[] suma = {0};
+        calculadora.recorrerPrimos(inicio, fin, (primos, cantidad) -> suma[0] += cantidad);
+        return suma[0];
+    }
+
+    //Streaming con los segmentos cribados en el pool y entregados en orden
+    @Benchmark
+    public long recorrerPrimosEnParalelo() {
+        long[] suma = {0};
+        calculadora.recorrerPrimosEnParalelo(inicio, fin, (primos, cantidad) -> suma[0] += cantidad);
+        return suma[0];
+    }
+}
@@ -0,0 +1,70 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: RenderizadoBenchmark
+ *
+ * Mide las dos salidas para el usuario con peticiones y respuestas simuladas
+ * (ver ServletSimulado):
+ * 1. HTML: PrimosServlet.doPost completo (validación, sesión y mostrarResultados)
+ * 2. PDF: PDFServlet.escribirPdf, sin pasar por CachePdf (si no, se mediría la copia del archivo)
+ *
+ * Los primos de los rangos medidos quedan en CacheResultados desde la primera
+ * invocación, así que se mide el renderizado y no el cálculo (que mide
+ * CalculadoraPrimosBenchmark). Cada método devuelve los bytes escritos.
+ *
+ * Ejecutar: mvn -Pbenchmarks test-compile exec:exec -Djmh.args="RenderizadoBenchmark"
+ */
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderizadoBenchmark {
+
+    @Param({"1-10000", "1-1000000"})
+    private String rango;
+
+    private long inicio;
+    private long fin;
+    private Map<String, String> parametros;
+    private PrimosServlet primosServlet;
+
+    @Setup
+    public void preparar() {
+        String[] partes = rango.split("-");
+        inicio = Long.parseLong(partes[0]);
+        fin = Long.parseLong(partes[1]);
+        parametros = Map.of("inicio", partes[0], "fin", partes[1]);
+        primosServlet = new PrimosServlet();
+    }
+
+    @Benchmark
+    public long html() throws Exception {
+        ServletSimulado.SalidaContada salida = new ServletSimulado.SalidaContada();
+        primosServlet.doPost(ServletSimulado.peticion(parametros), ServletSimulado.respuesta(salida));
+        return salida.bytes();
+    }
+
+    @Benchmark
+    public long pdf() throws IOException {
+        ServletSimulado.SalidaContada salida = new ServletSimulado.SalidaContada();
+        PDFServlet.escribirPdf(inicio, fin, salida);
+        return salida.bytes();
+    }
+}
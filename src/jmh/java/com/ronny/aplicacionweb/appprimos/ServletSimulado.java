@@ -0,0 +1,120 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ServletSimulado
+ *
+ * Petición, respuesta y sesión simuladas para medir los servlets sin contenedor.
+ * Se crean con java.lang.reflect.Proxy: solo responden los métodos que usan
+ * PrimosServlet y PDFServlet; el resto devuelve null (o 0 / false).
+ *
+ * La respuesta descarta lo que se escribe pero cuenta los bytes, así el
+ * benchmark puede devolver ese número y JMH no elimina el trabajo.
+ */
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+final class ServletSimulado {
+
+    private ServletSimulado() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Flujo que descarta los bytes y solo los cuenta
+    static final class SalidaContada extends ServletOutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int desde, int cantidad) {
+            bytes += cantidad;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+        }
+
+        long bytes() {
+            return bytes;
+        }
+    }
+
+    //Petición con los parámetros dados y una sesión en memoria
+    static HttpServletRequest peticion(Map<String, String> parametros) {
+        Map<String, Object> atributos = new HashMap<>();
+        HttpSession sesion = (HttpSession) Proxy.newProxyInstance(
+                ServletSimulado.class.getClassLoader(), new Class<?>[]{HttpSession.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "getAttribute":
+                            return atributos.get(args[0]);
+                        case "setAttribute":
+                            atributos.put((String) args[0], args[1]);
+                            return null;
+                        default:
+                            return valorPorDefecto(metodo.getReturnType());
+                    }
+                });
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                ServletSimulado.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "getParameter":
+                            return parametros.get(args[0]);
+                        case "getSession":
+                            return sesion;
+                        case "getMethod":
+                            return "POST";
+                        default:
+                            return valorPorDefecto(metodo.getReturnType());
+                    }
+                });
+    }
+
+    //Respuesta que escribe en 'salida' (por getWriter o por getOutputStream)
+    static HttpServletResponse respuesta(SalidaContada salida) {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                ServletSimulado.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "getWriter":
+                            return writer;
+                        case "getOutputStream":
+                            return salida;
+                        default:
+                            return valorPorDefecto(metodo.getReturnType());
+                    }
+                });
+    }
+
+    private static Object valorPorDefecto(Class<?> tipo) {
+        if (tipo == boolean.class) {
+            return false;
+        }
+        if (tipo == int.class) {
+            return 0;
+        }
+        if (tipo == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,291 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CachePdf
+ *
+ * Caché en disco de los reportes PDF ya generados, por rango (inicio, fin).
+ *
+ * Funcionamiento:
+ * 1. La primera descarga de un rango genera el PDF en un archivo temporal
+ *    y luego lo renombra; las siguientes descargas leen ese archivo
+ * 2. El total de bytes en disco nunca supera el presupuesto configurado:
+ *    al superarlo se borran los reportes usados hace más tiempo (LRU)
+ * 3. Cada reporte tiene un ETag para responder 304 si el navegador ya lo tiene
+ * 4. Si dos peticiones piden el mismo rango a la vez, solo una lo genera
+ * 5. Al reiniciar, los reportes que quedaron en el directorio se reutilizan
+ * 6. Solo se guardan reportes que se sabe que son chicos (ver admite): los rangos
+ *    más anchos que UMBRAL_STREAMING se envían en streaming sin pasar por el disco,
+ *    así no se escribe un archivo enorme que luego se borra por exceder el presupuesto
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class CachePdf {
+
+    // Instancia única compartida por todas las peticiones a PDFServlet
+    private static final CachePdf INSTANCIA =
+            new CachePdf(Path.of(ConfiguracionPrimos.DIRECTORIO_PDF), ConfiguracionPrimos.PRESUPUESTO_PDF);
+
+    // Bytes de cada primo en el reporte sin contar sus dígitos (celda de la tabla);
+    // medido: 8.142.120 bytes para los 664.579 primos hasta 10^7, unos 12 por primo
+    private static final int BYTES_POR_CELDA = 6;
+
+    // Encabezado, estilos y pie del documento
+    private static final int BYTES_FIJOS = 4096;
+
+    // Nombre de archivo de cada reporte: primos-<inicio>-<fin>.pdf
+    private static final Pattern NOMBRE = Pattern.compile("primos-(\\d+)-(\\d+)\\.pdf");
+
+    //Clave de la caché: el rango del reporte
+    private record Rango(int inicio, int fin) {
+        String nombreArchivo() {
+            return "primos-" + inicio + "-" + fin + ".pdf";
+        }
+    }
+
+    //Datos de un reporte guardado en disco
+    private record Entrada(Path archivo, long tamano, String etag) {
+    }
+
+    //Reporte listo para enviar: el canal ya está abierto (quien lo recibe debe cerrarlo)
+    public record Reporte(FileChannel canal, long tamano, String etag) implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+
+    private final Path directorio;
+    private final long presupuesto;
+
+    // accessOrder = true: cada lectura mueve la entrada al final (la más reciente)
+    private final LinkedHashMap<Rango, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytesUsados;
+    private boolean directorioLeido;
+
+    // Reportes que se están generando ahora: las demás peticiones esperan el mismo resultado
+    private final ConcurrentHashMap<Rango, CompletableFuture<Entrada>> enCurso = new ConcurrentHashMap<>();
+
+    CachePdf(Path directorio, long presupuesto) {
+        this.directorio = directorio;
+        this.presupuesto = presupuesto;
+    }
+
+    public static CachePdf instancia() {
+        return INSTANCIA;
+    }
+
+    //Indica si la caché está activada (presupuesto mayor que 0)
+    public boolean activa() {
+        return presupuesto > 0;
+    }
+
+    //Indica si el reporte del rango pasa por la caché: rangos de 32 bits de hasta UMBRAL_STREAMING
+    //números cuyo tamaño estimado no pasa de un cuarto del presupuesto (un solo reporte no vacía la caché)
+    public boolean admite(long inicio, long fin) {
+        return activa() && fin <= Integer.MAX_VALUE && fin - inicio + 1 <= ConfiguracionPrimos.UMBRAL_STREAMING
+                && tamanoEstimado(inicio, fin) <= presupuesto / 4;
+    }
+
+    //Cota superior del tamaño del reporte: a lo sumo 2y / ln(y) primos en y números consecutivos
+    //(Montgomery-Vaughan), cada uno con su celda y sus dígitos
+    static long tamanoEstimado(long inicio, long fin) {
+        long ancho = fin - inicio + 1;
+        long primos = (ancho < 2) ? ancho : (long) Math.ceil(2 * ancho / Math.log(ancho));
+        int digitos = Long.toString(fin).length();
+        return BYTES_FIJOS + primos * (BYTES_POR_CELDA + digitos);
+    }
+
+    //Indica si el reporte del rango ya está guardado, sin abrirlo ni cambiar el orden LRU
+    //(FiltroAdmision no cobra la criba de un reporte que solo se lee del disco o se responde con 304)
+    public synchronized boolean contiene(long inicio, long fin) {
+        if (!admite(inicio, fin)) {
+            return false;
+        }
+        try {
+            leerDirectorio();
+        } catch (IOException e) {
+            return false;
+        }
+        return entradas.containsKey(new Rango((int) inicio, (int) fin));
+    }
+
+    //Abre el reporte del rango desde el disco, generándolo antes si no está guardado
+    public Reporte abrir(int inicio, int fin) throws IOException {
+        Rango rango = new Rango(inicio, fin);
+        Reporte reporte = abrirGuardado(rango);
+        if (reporte != null) {
+            return reporte;
+        }
+
+        // Solo la primera petición genera el reporte; las demás esperan su resultado
+        CompletableFuture<Entrada> nuevo = new CompletableFuture<>();
+        CompletableFuture<Entrada> existente = enCurso.putIfAbsent(rango, nuevo);
+        if (existente == null) {
+            try {
+                Entrada entrada = generar(rango);
+                // Se avisa a los que esperan después de registrar: así abrirGuardado ya lo encuentra
+                Reporte generado = registrarYAbrir(rango, entrada);
+                nuevo.complete(entrada);
+                return generado;
+            } catch (IOException | RuntimeException e) {
+                nuevo.completeExceptionally(e);
+                throw e;
+            } finally {
+                enCurso.remove(rango);
+            }
+        }
+
+        try {
+            existente.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido mientras se generaba el PDF", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al generar el PDF: " + e.getCause().getMessage(), e.getCause());
+        }
+        // Ya registrado por quien lo generó (si no fue expulsado enseguida, se regenera)
+        reporte = abrirGuardado(rango);
+        return (reporte != null) ? reporte : abrir(inicio, fin);
+    }
+
+    //Abre el reporte si está en la caché; el bloqueo evita que se borre mientras se abre
+    private synchronized Reporte abrirGuardado(Rango rango) throws IOException {
+        leerDirectorio();
+        Entrada entrada = entradas.get(rango);
+        if (entrada == null) {
+            return null;
+        }
+        try {
+            return new Reporte(FileChannel.open(entrada.archivo(), StandardOpenOption.READ), entrada.tamano(), entrada.etag());
+        } catch (IOException e) {
+            // El archivo desapareció del disco: se olvida la entrada y se regenera
+            entradas.remove(rango);
+            bytesUsados -= entrada.tamano();
+            return null;
+        }
+    }
+
+    //Registra el reporte recién generado, lo abre y borra los más antiguos si hace falta
+    private synchronized Reporte registrarYAbrir(Rango rango, Entrada entrada) throws IOException {
+        // Se abre antes de expulsar: un reporte más grande que el presupuesto
+        // se borra del disco pero se puede enviar igual por el canal abierto
+        Reporte reporte = new Reporte(FileChannel.open(entrada.archivo(), StandardOpenOption.READ), entrada.tamano(), entrada.etag());
+        Entrada anterior = entradas.put(rango, entrada);
+        if (anterior != null) {
+            bytesUsados -= anterior.tamano();
+        }
+        bytesUsados += entrada.tamano();
+        expulsar();
+        return reporte;
+    }
+
+    //Escribe el PDF en un temporal y lo renombra, así nunca se lee un archivo a medias
+    private Entrada generar(Rango rango) throws IOException {
+        Files.createDirectories(directorio);
+        Path archivo = directorio.resolve(rango.nombreArchivo());
+        Path temporal = Files.createTempFile(directorio, "primos-", ".tmp");
+        try {
+            try (OutputStream salida = Files.newOutputStream(temporal)) {
+                PDFServlet.escribirPdf(rango.inicio(), rango.fin(), salida);
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        return entrada(rango, archivo);
+    }
+
+    //Borra los reportes usados hace más tiempo hasta volver al presupuesto
+    private void expulsar() {
+        Iterator<Map.Entry<Rango, Entrada>> it = entradas.entrySet().iterator();
+        while (bytesUsados > presupuesto && it.hasNext()) {
+            Entrada entrada = it.next().getValue();
+            it.remove();
+            bytesUsados -= entrada.tamano();
+            try {
+                Files.deleteIfExists(entrada.archivo());
+            } catch (IOException e) {
+                // Si no se puede borrar, se intentará otra vez al reiniciar
+            }
+        }
+    }
+
+    //La primera vez, registra los reportes que quedaron en el directorio (del más viejo al más nuevo)
+    private void leerDirectorio() throws IOException {
+        if (directorioLeido) {
+            return;
+        }
+        directorioLeido = true;
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+
+        List<Path> archivos = new ArrayList<>();
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(directorio)) {
+            for (Path archivo : contenido) {
+                String nombre = archivo.getFileName().toString();
+                if (nombre.endsWith(".tmp")) {
+                    Files.deleteIfExists(archivo); // Restos de una generación interrumpida
+                } else if (NOMBRE.matcher(nombre).matches()) {
+                    archivos.add(archivo);
+                }
+            }
+        }
+        archivos.sort(Comparator.comparingLong(CachePdf::fechaModificacion));
+
+        for (Path archivo : archivos) {
+            Matcher m = NOMBRE.matcher(archivo.getFileName().toString());
+            if (!m.matches()) {
+                continue;
+            }
+            try {
+                Rango rango = new Rango(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+                Entrada entrada = entrada(rango, archivo);
+                entradas.put(rango, entrada);
+                bytesUsados += entrada.tamano();
+            } catch (NumberFormatException e) {
+                // Nombre con números fuera de rango: no es un reporte de esta aplicación
+            }
+        }
+        expulsar();
+    }
+
+    //El ETag cambia si el archivo se regenera (rango, tamaño y fecha de modificación)
+    private static Entrada entrada(Rango rango, Path archivo) throws IOException {
+        long tamano = Files.size(archivo);
+        String etag = "\"" + rango.inicio() + "-" + rango.fin() + "-" + tamano + "-"
+                + Long.toHexString(fechaModificacion(archivo)) + "\"";
+        return new Entrada(archivo, tamano, etag);
+    }
+
+    private static long fechaModificacion(Path archivo) {
+        try {
+            return Files.getLastModifiedTime(archivo).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    //Bytes ocupados en disco por los reportes guardados
+    public synchronized long bytesUsados() {
+        return bytesUsados;
+    }
+}
@@ -0,0 +1,229 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CacheResultados
+ *
+ * Caché compartida por todo el servidor con los primos ya calculados.
+ * La sesión de cada usuario solo guarda el rango (inicio y fin); los primos
+ * se piden aquí y, si ya no están, se vuelven a calcular.
+ *
+ * Funcionamiento:
+ * 1. Cada rango se guarda como ConjuntoPrimos con su tamaño en bytes
+ * 2. El total de bytes nunca supera el presupuesto configurado, y un resultado
+ *    no puede ocupar más de un cuarto (si no, uno solo expulsaría a todos los demás)
+ * 3. Al superarlo se expulsan los rangos usados hace más tiempo (LRU)
+ * 4. Si el rango pedido se solapa con rangos guardados, se reutilizan esas
+ *    partes y solo se calculan los huecos (por ejemplo, [500k, 2M] reutiliza
+ *    [1, 1M] y solo calcula (1M, 2M])
+ * 5. Cuenta aciertos, aciertos parciales, fallos y expulsiones
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class CacheResultados {
+
+    // Instancia única compartida por PrimosServlet y PDFServlet
+    private static final CacheResultados INSTANCIA = new CacheResultados(ConfiguracionPrimos.MEMORIA_CACHE);
+
+    //Clave de la caché: el rango consultado
+    private record Rango(int inicio, int fin) {
+    }
+
+    //Parte del rango pedido: se copia de un resultado guardado o se calcula (origen == null)
+    private record Tramo(int desde, int hasta, ConjuntoPrimos origen) {
+    }
+
+    // accessOrder = true: cada lectura mueve la entrada al final (la más reciente)
+    private final LinkedHashMap<Rango, ConjuntoPrimos> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private final long presupuesto;
+    private long bytesUsados;
+
+    // Contadores sin bloqueo para las estadísticas
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder aciertosParciales = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+
+    CacheResultados(long presupuesto) {
+        this.presupuesto = presupuesto;
+    }
+
+    public static CacheResultados instancia() {
+        return INSTANCIA;
+    }
+
+    //Devuelve los primos del rango reutilizando lo guardado y calculando solo lo que falta
+    public ConjuntoPrimos obtenerOCalcular(int inicio, int fin) {
+        List<Tramo> tramos;
+        synchronized (this) {
+            ConjuntoPrimos exacto = entradas.get(new Rango(inicio, fin));
+            if (exacto != null) {
+                aciertos.increment();
+                return exacto;
+            }
+            tramos = cubrir(inicio, fin);
+        }
+
+        // Contar cuántos tramos se reutilizan y cuántos hay que calcular
+        int reutilizados = 0;
+        int calculados = 0;
+        for (Tramo tramo : tramos) {
+            if (tramo.origen() != null) {
+                reutilizados++;
+            } else {
+                calculados++;
+            }
+        }
+        if (calculados == 0) {
+            aciertos.increment();
+        } else if (reutilizados > 0) {
+            aciertosParciales.increment();
+        } else {
+            fallos.increment();
+        }
+
+        // El cálculo se hace fuera del bloqueo para no frenar a las demás peticiones
+        ConjuntoPrimos primos;
+        if (tramos.size() == 1 && calculados == 1) {
+            primos = new CalculadoraPrimos().calcularConjunto(inicio, fin);
+        } else {
+            ConjuntoPrimos.Constructor constructor = new ConjuntoPrimos.Constructor();
+            for (Tramo tramo : tramos) {
+                if (tramo.origen() == null) {
+                    constructor.agregar(new CalculadoraPrimos().calcularConjunto(tramo.desde(), tramo.hasta()));
+                } else {
+                    copiar(tramo, constructor);
+                }
+            }
+            primos = constructor.construir();
+        }
+
+        guardar(inicio, fin, primos);
+        return primos;
+    }
+
+    //Devuelve los primos guardados para el rango, o null si no están
+    public synchronized ConjuntoPrimos obtener(int inicio, int fin) {
+        return entradas.get(new Rango(inicio, fin));
+    }
+
+    //Bytes máximos de un solo resultado guardado
+    public long maximoPorResultado() {
+        return presupuesto / 4;
+    }
+
+    //Guarda los primos del rango y expulsa los más antiguos si se supera el presupuesto;
+    //devuelve false si el resultado es más grande que maximoPorResultado() y no se guardó
+    public synchronized boolean guardar(int inicio, int fin, ConjuntoPrimos primos) {
+        long tamano = primos.tamanoEnBytes();
+        if (tamano > maximoPorResultado()) {
+            return false;
+        }
+
+        // Los rangos contenidos en el nuevo sobran: sus primos se pueden copiar de él
+        Iterator<Map.Entry<Rango, ConjuntoPrimos>> it = entradas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Rango, ConjuntoPrimos> entrada = it.next();
+            Rango rango = entrada.getKey();
+            if (rango.inicio() >= inicio && rango.fin() <= fin) {
+                bytesUsados -= entrada.getValue().tamanoEnBytes();
+                it.remove();
+            }
+        }
+
+        entradas.put(new Rango(inicio, fin), primos);
+        bytesUsados += tamano;
+
+        // Expulsar desde el menos usado recientemente hasta volver al presupuesto
+        it = entradas.entrySet().iterator();
+        while (bytesUsados > presupuesto && it.hasNext()) {
+            bytesUsados -= it.next().getValue().tamanoEnBytes();
+            it.remove();
+            expulsiones.increment();
+        }
+        return true;
+    }
+
+    //Divide [inicio, fin] en tramos cubiertos por rangos guardados y huecos por calcular
+    private List<Tramo> cubrir(int inicio, int fin) {
+        // Rangos guardados que se solapan con el pedido (la iteración no altera el orden LRU)
+        List<Rango> solapados = new ArrayList<>();
+        for (Rango rango : entradas.keySet()) {
+            if (rango.inicio() <= fin && rango.fin() >= inicio) {
+                solapados.add(rango);
+            }
+        }
+
+        List<Tramo> tramos = new ArrayList<>();
+        long x = inicio; // Primer número todavía sin cubrir (long: fin puede ser Integer.MAX_VALUE)
+        while (x <= fin) {
+            // Entre los rangos que contienen x, el que llega más lejos
+            Rango mejor = null;
+            long siguienteInicio = (long) fin + 1; // Inicio del rango guardado más cercano después de x
+            for (Rango rango : solapados) {
+                if (rango.inicio() <= x && rango.fin() >= x) {
+                    if (mejor == null || rango.fin() > mejor.fin()) {
+                        mejor = rango;
+                    }
+                } else if (rango.inicio() > x) {
+                    siguienteInicio = Math.min(siguienteInicio, rango.inicio());
+                }
+            }
+
+            if (mejor != null) {
+                int hasta = Math.min(fin, mejor.fin());
+                // get() marca el rango como usado recientemente
+                tramos.add(new Tramo((int) x, hasta, entradas.get(mejor)));
+                x = (long) hasta + 1;
+            } else {
+                int hasta = (int) (siguienteInicio - 1);
+                tramos.add(new Tramo((int) x, hasta, null));
+                x = siguienteInicio;
+            }
+        }
+        return tramos;
+    }
+
+    //Copia al constructor los primos del tramo tomados de un resultado guardado
+    private static void copiar(Tramo tramo, ConjuntoPrimos.Constructor constructor) {
+        ConjuntoPrimos origen = tramo.origen();
+        PrimitiveIterator.OfInt it = origen.iterador(origen.indiceDe(tramo.desde()));
+        while (it.hasNext()) {
+            int primo = it.nextInt();
+            if (primo > tramo.hasta()) {
+                break;
+            }
+            constructor.agregar(primo);
+        }
+    }
+
+    //Bytes ocupados actualmente por los resultados guardados
+    public synchronized long bytesUsados() {
+        return bytesUsados;
+    }
+
+    //Consultas resueltas por completo con resultados guardados
+    public long aciertos() {
+        return aciertos.sum();
+    }
+
+    //Consultas que reutilizaron una parte y calcularon el resto
+    public long aciertosParciales() {
+        return aciertosParciales.sum();
+    }
+
+    //Consultas calculadas desde cero
+    public long fallos() {
+        return fallos.sum();
+    }
+
+    //Resultados expulsados por falta de presupuesto
+    public long expulsiones() {
+        return expulsiones.sum();
+    }
+}
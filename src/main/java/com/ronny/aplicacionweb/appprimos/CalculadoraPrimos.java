@@ -1,50 +1,262 @@
 package com.ronny.aplicacionweb.appprimos;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList; // Importa ArrayList para crear listas dinámicas
+import java.util.Arrays;
 import java.util.List;      // Importa interfaz List
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
 
 //Clase que calcula números primos en un rango dado
 
 public class CalculadoraPrimos {
 
+    // Pool compartido por todas las peticiones, con tamaño fijo configurable
+    private static final ForkJoinPool POOL = new ForkJoinPool(ConfiguracionPrimos.PARALELISMO);
+
+    // Limita cuántas peticiones usan el pool a la vez en todo el servidor
+    private static final Semaphore CALCULOS_PARALELOS =
+            new Semaphore(ConfiguracionPrimos.MAX_CALCULOS_PARALELOS);
+
+    // Cantidad de primos por porción al entregar un segmento calculado en el pool
+    private static final int PORCION = 4096;
+
+    //Primos de un segmento de 64 bits calculado en el pool (las primeras 'cantidad' posiciones)
+    private record LoteLargo(long[] primos, int cantidad) {
+    }
+
+    //Calcula un segmento [a, b] del rango en un hilo del pool
+    @FunctionalInterface
+    private interface Cribador<R> {
+        R cribar(long a, long b);
+    }
+
      //Encuentra todos los números primos entre inicio y fin
     public List<Integer> calcularPrimos(int inicio, int fin) {
-        List<Integer> primos = new ArrayList<>(); // Crea lista vacía para guardar primos
+        ConjuntoPrimos conjunto = calcularConjunto(inicio, fin);
+        List<Integer> primos = new ArrayList<>(conjunto.size()); // Crea lista para guardar primos
+        conjunto.recorrer(primos::add);
+        return primos; // Devuelve lista de primos encontrados
+    }
+
+    //Encuentra los primos entre inicio y fin y los guarda en formato compacto
+    public ConjuntoPrimos calcularConjunto(int inicio, int fin) {
+        long t0 = System.nanoTime();
+        ConjuntoPrimos primos = calcular(inicio, fin);
+        MetricasPrimos.Etapa.CALCULO.registrar(t0, primos.size());
+        return primos;
+    }
+
+    private ConjuntoPrimos calcular(int inicio, int fin) {
+        // Si hay un índice precalculado que cubre el rango, basta con leer sus bits
+        IndicePrimos indice = IndicePrimos.activo();
+        if (indice != null && indice.cubre(fin)) {
+            ConjuntoPrimos.Constructor primos = new ConjuntoPrimos.Constructor();
+            indice.recorrer(inicio, fin, primos::agregar);
+            return primos.construir();
+        }
 
-        // Recorre cada número del rango
-        for (int numero = inicio; numero <= fin; numero++) {
-            if (esPrimo(numero)) { // Si el número es primo
-                primos.add(numero); // Agrega el primo a la lista
+        // La criba segmentada calcula los primos base una vez y recorre el rango por bloques
+        CribaSegmentada criba = new CribaSegmentada(fin);
+
+        // Los rangos grandes se reparten en el pool solo si hay cupo en el servidor
+        long ancho = (long) fin - inicio + 1;
+        if (ancho >= 2L * ConfiguracionPrimos.SEGMENTO_MINIMO && CALCULOS_PARALELOS.tryAcquire()) {
+            try {
+                return calcularEnParalelo(criba, inicio, fin);
+            } finally {
+                CALCULOS_PARALELOS.release();
             }
         }
 
-        return primos; // Devuelve lista de primos encontrados
+        return cribarSegmento(criba, inicio, fin);
     }
 
-    //Verifica si un número es primo
+    //Entrega los primos entre inicio y fin bloque por bloque, en orden y sin guardarlos;
+    //la memoria usada no depende del tamaño del rango
+    public void recorrerPrimos(int inicio, int fin, CribaSegmentada.ConsumidorSegmento consumidor) {
+        IndicePrimos indice = IndicePrimos.activo();
+        if (indice != null && indice.cubre(fin)) {
+            indice.recorrer(inicio, fin, consumidor);
+        } else {
+            new CribaSegmentada(fin).cribar(inicio, fin, consumidor);
+        }
+    }
 
-    private boolean esPrimo(int numero) {
-        // Los números <= 1 no son primos
-        if (numero <= 1) {
-            return false;
+    //Igual que recorrerPrimos, pero acepta rangos de 64 bits (hasta Long.MAX_VALUE);
+    //los rangos que caben en int usan la criba de 32 bits (y el índice si lo hay)
+    public void recorrerPrimosLargos(long inicio, long fin, CribaLarga.ConsumidorSegmentoLargo consumidor) {
+        if (fin < inicio) {
+            return; // Rango vacío (por ejemplo, una página que empieza después del fin)
         }
-        // El 2 es el único primo par
-        if (numero == 2) {
-            return true;
+        if (fin > Integer.MAX_VALUE) {
+            CribaLarga.cribar(inicio, fin, consumidor);
+            return;
+        }
+        recorrerPrimos((int) Math.max(inicio, 0), (int) fin, comoEnteros(consumidor));
+    }
+
+    //Igual que recorrerPrimos, para quien recorre el rango completo (PDF, resumen, trabajos...):
+    //los rangos anchos se criban por segmentos en el pool, varios a la vez, y se entregan en orden.
+    //Solo unos pocos segmentos se adelantan al consumidor, así la memoria no depende del rango
+    public void recorrerPrimosEnParalelo(int inicio, int fin, CribaSegmentada.ConsumidorSegmento consumidor) {
+        IndicePrimos indice = IndicePrimos.activo();
+        long ancho = (long) fin - inicio + 1;
+        if ((indice != null && indice.cubre(fin)) || ancho < 2L * ConfiguracionPrimos.SEGMENTO_MINIMO
+                || !CALCULOS_PARALELOS.tryAcquire()) {
+            recorrerPrimos(inicio, fin, consumidor); // Índice, rango chico o pool ocupado
+            return;
         }
-        // Los pares mayores que 2 no son primos
-        if (numero % 2 == 0) {
-            return false;
+        try {
+            CribaSegmentada criba = new CribaSegmentada(fin);
+            int[] porcion = new int[PORCION];
+            entregarEnOrden(inicio, fin,
+                    (a, b) -> cribarSegmento(criba, (int) a, (int) b),
+                    segmento -> entregar(segmento, porcion, consumidor));
+        } finally {
+            CALCULOS_PARALELOS.release();
         }
-        // Calcula la raíz cuadrada como límite superior
-        int limite = (int) Math.sqrt(numero);
+    }
 
-        // Verifica divisibilidad solo con números impares hasta el límite
-        for (int i = 3; i <= limite; i += 2) {
-            if (numero % i == 0) { // Si es divisible, no es primo
-                return false;
+    //Versión de 64 bits de recorrerPrimosEnParalelo
+    public void recorrerPrimosLargosEnParalelo(long inicio, long fin, CribaLarga.ConsumidorSegmentoLargo consumidor) {
+        if (fin < inicio) {
+            return;
+        }
+        if (fin <= Integer.MAX_VALUE) {
+            recorrerPrimosEnParalelo((int) Math.max(inicio, 0), (int) fin, comoEnteros(consumidor));
+            return;
+        }
+        long desde = Math.max(inicio, 2);
+        if (fin - desde < 2L * ConfiguracionPrimos.SEGMENTO_MINIMO - 1 || !CALCULOS_PARALELOS.tryAcquire()) {
+            CribaLarga.cribar(inicio, fin, consumidor);
+            return;
+        }
+        try {
+            entregarEnOrden(desde, fin, CalculadoraPrimos::cribarSegmentoLargo, lote -> {
+                if (lote.cantidad() > 0) {
+                    consumidor.aceptar(lote.primos(), lote.cantidad());
+                }
+                return consumidor.terminado();
+            });
+        } finally {
+            CALCULOS_PARALELOS.release();
+        }
+    }
+
+    //Adapta un consumidor de bloques long para recibir los bloques int de la criba de 32 bits
+    private static CribaSegmentada.ConsumidorSegmento comoEnteros(CribaLarga.ConsumidorSegmentoLargo consumidor) {
+        return new CribaSegmentada.ConsumidorSegmento() {
+            private long[] copia = new long[0];
+
+            @Override
+            public void aceptar(int[] primos, int cantidad) {
+                if (copia.length < cantidad) {
+                    copia = new long[cantidad];
+                }
+                for (int i = 0; i < cantidad; i++) {
+                    copia[i] = primos[i];
+                }
+                consumidor.aceptar(copia, cantidad);
+            }
+
+            @Override
+            public boolean terminado() {
+                return consumidor.terminado();
+            }
+        };
+    }
+
+    //Criba [inicio, fin] en segmentos de SEGMENTO_MINIMO números dentro del pool, con hasta
+    //dos segmentos por hilo en curso, y los entrega en orden; se detiene cuando 'entregar'
+    //devuelve true (el consumidor terminó) y descarta los segmentos adelantados
+    private static <R> void entregarEnOrden(long inicio, long fin, Cribador<R> cribador, Predicate<R> entregar) {
+        int enVuelo = 2 * POOL.getParallelism();
+        ArrayDeque<ForkJoinTask<R>> pendientes = new ArrayDeque<>();
+        long siguiente = inicio;
+        boolean quedan = true; // Se usa un indicador porque fin puede ser Long.MAX_VALUE
+        try {
+            while (quedan || !pendientes.isEmpty()) {
+                while (quedan && pendientes.size() < enVuelo) {
+                    long a = siguiente;
+                    long b = (fin - a < ConfiguracionPrimos.SEGMENTO_MINIMO) ? fin : a + ConfiguracionPrimos.SEGMENTO_MINIMO - 1;
+                    pendientes.add(POOL.submit(() -> cribador.cribar(a, b)));
+                    quedan = b < fin;
+                    siguiente = b + 1;
+                }
+                // Se espera el segmento más antiguo: así el consumidor recibe los primos en orden
+                if (entregar.test(pendientes.poll().join())) {
+                    return;
+                }
+            }
+        } finally {
+            for (ForkJoinTask<R> tarea : pendientes) {
+                tarea.cancel(false); // Los que no empezaron ya no se ejecutan
+            }
+        }
+    }
+
+    //Entrega un segmento compacto por porciones; devuelve true si el consumidor terminó
+    private static boolean entregar(ConjuntoPrimos segmento, int[] porcion,
+                                    CribaSegmentada.ConsumidorSegmento consumidor) {
+        PrimitiveIterator.OfInt it = segmento.iterator();
+        while (it.hasNext()) {
+            int cantidad = 0;
+            while (cantidad < porcion.length && it.hasNext()) {
+                porcion[cantidad++] = it.nextInt();
+            }
+            consumidor.aceptar(porcion, cantidad);
+            if (consumidor.terminado()) {
+                return true;
             }
         }
-        return true; // Si pasó todas las pruebas, es primo
+        return consumidor.terminado();
+    }
+
+    //Criba un segmento de 64 bits y guarda sus primos en un arreglo propio
+    private static LoteLargo cribarSegmentoLargo(long inicio, long fin) {
+        long[][] primos = {new long[1024]};
+        int[] cantidad = {0};
+        CribaLarga.cribar(inicio, fin, (bloque, n) -> {
+            if (cantidad[0] + n > primos[0].length) {
+                primos[0] = Arrays.copyOf(primos[0], Math.max(2 * primos[0].length, cantidad[0] + n));
+            }
+            System.arraycopy(bloque, 0, primos[0], cantidad[0], n);
+            cantidad[0] += n;
+        });
+        return new LoteLargo(primos[0], cantidad[0]);
+    }
+
+    //Divide el rango en segmentos, los criba en el pool y los une en orden ascendente
+    private ConjuntoPrimos calcularEnParalelo(CribaSegmentada criba, int inicio, int fin) {
+        long ancho = (long) fin - inicio + 1;
+
+        // Unos pocos segmentos por hilo permiten repartir mejor la carga
+        long segmentos = Math.min(ancho / ConfiguracionPrimos.SEGMENTO_MINIMO, 4L * POOL.getParallelism());
+        long tamano = (ancho + segmentos - 1) / segmentos;
+
+        List<ForkJoinTask<ConjuntoPrimos>> tareas = new ArrayList<>();
+        for (long desde = inicio; desde <= fin; desde += tamano) {
+            int a = (int) desde;
+            int b = (int) Math.min(fin, desde + tamano - 1);
+            tareas.add(POOL.submit(() -> cribarSegmento(criba, a, b)));
+        }
+
+        // Se espera cada segmento en el orden del rango, así el resultado queda ordenado
+        ConjuntoPrimos.Constructor primos = new ConjuntoPrimos.Constructor();
+        for (ForkJoinTask<ConjuntoPrimos> tarea : tareas) {
+            primos.agregar(tarea.join());
+        }
+        return primos.construir();
+    }
+
+    //Criba un segmento y devuelve sus primos en formato compacto
+    private static ConjuntoPrimos cribarSegmento(CribaSegmentada criba, int inicio, int fin) {
+        ConjuntoPrimos.Constructor primos = new ConjuntoPrimos.Constructor();
+        criba.cribar(inicio, fin, primos::agregar);
+        return primos.construir();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: Cancelacion
+ *
+ * Señal de cancelación cooperativa de una petición. Los consumidores de la criba
+ * la consultan en terminado(), entre bloque y bloque, así el cálculo se detiene
+ * poco después de que deja de tener sentido:
+ * 1. DESCONEXION: el cliente cerró la pestaña o la conexión (la escritura falló)
+ * 2. TIEMPO: se superó TIEMPO_MAXIMO_PETICION_MS desde que empezó la petición
+ * 3. SESION: la sesión donde se iba a guardar el resultado fue invalidada
+ *
+ * Consultarla es barato: un flush que ya se hacía por cada bloque, una lectura
+ * del reloj y una llamada a la sesión.
+ */
+
+import jakarta.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+final class Cancelacion {
+
+    //Motivos de cancelación, con un contador para /metrics
+    enum Motivo {
+        DESCONEXION("desconexion"),
+        TIEMPO("tiempo"),
+        SESION("sesion");
+
+        private final String nombre;
+        private final LongAdder cantidad = new LongAdder();
+
+        Motivo(String nombre) {
+            this.nombre = nombre;
+        }
+
+        String nombre() {
+            return nombre;
+        }
+
+        long cantidad() {
+            return cantidad.sum();
+        }
+    }
+
+    private final long limiteNanos;
+    private volatile Motivo motivo;      // null mientras la petición siga viva
+    private volatile HttpSession sesion; // null si no hay sesión que vigilar
+    private volatile PrintWriter salida; // null si no hay salida de texto que vigilar
+
+    //Empieza a contar el tiempo máximo desde ahora
+    Cancelacion() {
+        long maximo = ConfiguracionPrimos.TIEMPO_MAXIMO_PETICION_MS;
+        this.limiteNanos = (maximo > 0) ? System.nanoTime() + maximo * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    //La petición se cancela si esta sesión se invalida
+    void vigilarSesion(HttpSession sesion) {
+        this.sesion = sesion;
+    }
+
+    //La petición se cancela si escribir en esta salida falla (el cliente se desconectó)
+    void vigilarSalida(PrintWriter salida) {
+        this.salida = salida;
+    }
+
+    //Cancela desde afuera (por ejemplo, cuando el contenedor avisa un error de la conexión)
+    void cancelar(Motivo motivo) {
+        if (this.motivo == null) {
+            this.motivo = motivo;
+            motivo.cantidad.increment();
+        }
+    }
+
+    //Comprueba las tres condiciones; una vez cancelada, sigue cancelada
+    boolean cancelada() {
+        if (motivo != null) {
+            return true;
+        }
+        PrintWriter out = salida;
+        if (out != null && out.checkError()) {
+            cancelar(Motivo.DESCONEXION);
+        } else if (limiteNanos != Long.MAX_VALUE && System.nanoTime() - limiteNanos > 0) {
+            cancelar(Motivo.TIEMPO);
+        } else if (sesionInvalidada()) {
+            cancelar(Motivo.SESION);
+        }
+        return motivo != null;
+    }
+
+    //Motivo de la cancelación, o null si no fue cancelada
+    Motivo motivo() {
+        return motivo;
+    }
+
+    private boolean sesionInvalidada() {
+        HttpSession s = sesion;
+        if (s == null) {
+            return false;
+        }
+        try {
+            s.getCreationTime(); // Lanza IllegalStateException si la sesión ya no es válida
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CargadorIndice
+ *
+ * Etapa opcional de arranque que prepara el IndicePrimos.
+ *
+ * Funcionamiento:
+ * 1. Si primos.indice.limite es 0, no hace nada
+ * 2. Si no, abre (o construye la primera vez) el archivo del índice en un hilo
+ *    aparte, para no retrasar el despliegue de la aplicación
+ * 3. Mientras tanto CalculadoraPrimos sigue usando la criba segmentada
+ *
+ * La anotación @WebListener registra la clase para que el contenedor la
+ * llame al iniciar y al detener la aplicación.
+ */
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.nio.file.Path;
+
+@WebListener
+public class CargadorIndice implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent evento) {
+        int limite = ConfiguracionPrimos.LIMITE_INDICE;
+        if (limite <= 0) {
+            return; // Índice desactivado
+        }
+
+        Path archivo = Path.of(ConfiguracionPrimos.ARCHIVO_INDICE);
+        Thread hilo = new Thread(() -> {
+            try {
+                IndicePrimos.activar(IndicePrimos.cargarOConstruir(archivo, limite));
+                evento.getServletContext().log("Índice de primos listo hasta " + limite + ": " + archivo);
+            } catch (IOException e) {
+                // Sin índice la aplicación sigue funcionando con la criba
+                evento.getServletContext().log("No se pudo preparar el índice de primos: " + archivo, e);
+            }
+        }, "cargador-indice-primos");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent evento) {
+        IndicePrimos.activar(null);
+    }
+}
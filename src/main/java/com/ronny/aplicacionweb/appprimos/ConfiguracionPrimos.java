@@ -0,0 +1,109 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ConfiguracionPrimos
+ *
+ * Reúne los parámetros ajustables del cálculo de primos.
+ * Cada valor se lee de una propiedad del sistema (por ejemplo, en Tomcat:
+ * CATALINA_OPTS="-Dprimos.paralelismo=16") y tiene un valor por defecto.
+ */
+
+public final class ConfiguracionPrimos {
+
+    // Hilos del pool compartido que calcula los rangos en paralelo
+    public static final int PARALELISMO =
+            Integer.getInteger("primos.paralelismo", Runtime.getRuntime().availableProcessors());
+
+    // Tamaño mínimo (en números) de cada segmento paralelo;
+    // los rangos más pequeños que dos segmentos se calculan en el hilo de la petición
+    public static final int SEGMENTO_MINIMO =
+            Integer.getInteger("primos.segmentoMinimo", 4_000_000);
+
+    // Máximo de peticiones que pueden usar el pool al mismo tiempo en todo el servidor;
+    // las demás se calculan en su propio hilo para no acaparar los núcleos
+    public static final int MAX_CALCULOS_PARALELOS =
+            Integer.getInteger("primos.maxCalculosParalelos", Math.max(1, PARALELISMO / 4));
+
+    // Memoria máxima (en bytes) que puede ocupar la caché compartida de resultados;
+    // un solo resultado (por ejemplo, el de un trabajo) puede ocupar hasta un cuarto
+    public static final long MEMORIA_CACHE =
+            Long.getLong("primos.memoriaCache", 64L * 1024 * 1024);
+
+    // Límite del índice precalculado de primos (0 = desactivado; máximo Integer.MAX_VALUE)
+    public static final int LIMITE_INDICE =
+            Integer.getInteger("primos.indice.limite", 0);
+
+    // Archivo donde se guarda el índice para reutilizarlo al reiniciar
+    public static final String ARCHIVO_INDICE =
+            System.getProperty("primos.indice.archivo",
+                    System.getProperty("java.io.tmpdir") + "/primos-" + LIMITE_INDICE + ".idx");
+
+    // Rangos más anchos que esto se muestran en streaming, sin guardarlos en la caché
+    public static final int UMBRAL_STREAMING =
+            Integer.getInteger("primos.streaming.umbral", 10_000_000);
+
+    // Máximo de primos por página HTML (0 = sin límite); el resto se ve con "Ver más"
+    public static final int MAX_PRIMOS_HTML =
+            Integer.getInteger("primos.html.maxPrimos", 10_000);
+
+    // Directorio de la caché de reportes PDF
+    public static final String DIRECTORIO_PDF =
+            System.getProperty("primos.pdf.directorio",
+                    System.getProperty("java.io.tmpdir") + "/primos-pdf");
+
+    // Bytes de disco que pueden ocupar los reportes PDF guardados (0 = sin caché)
+    public static final long PRESUPUESTO_PDF =
+            Long.getLong("primos.pdf.presupuesto", 256L * 1024 * 1024);
+
+    // Hilos dedicados a los trabajos en segundo plano (TrabajosServlet)
+    public static final int HILOS_TRABAJOS =
+            Integer.getInteger("primos.trabajos.hilos", Math.max(1, PARALELISMO / 4));
+
+    // Trabajos que pueden esperar en cola; los siguientes se rechazan con 429
+    public static final int COLA_TRABAJOS =
+            Integer.getInteger("primos.trabajos.cola", 16);
+
+    // Segundos que se conserva un trabajo terminado para leer su resultado
+    public static final long RETENCION_TRABAJOS_SEGUNDOS =
+            Long.getLong("primos.trabajos.retencion", 600L);
+
+    // Mayor x para el que se calcula pi(x) directamente al contar (usa 2 * raíz(x) longs de memoria)
+    public static final long MAXIMO_PI =
+            Long.getLong("primos.conteo.maximoPi", 1_000_000_000_000L);
+
+    // Usar instrucciones SIMD en la criba si la JVM tiene el módulo jdk.incubator.vector
+    // (se inicia con --add-modules jdk.incubator.vector); con false siempre se usa Java escalar
+    public static final boolean VECTORIAL =
+            Boolean.parseBoolean(System.getProperty("primos.vectorial", "true"));
+
+    // Milisegundos que puede durar el cálculo de una petición antes de cancelarse (0 = sin límite)
+    public static final long TIEMPO_MAXIMO_PETICION_MS =
+            Long.getLong("primos.peticion.tiempoMaximoMs", 120_000L);
+
+    // Atender PrimosServlet en hilos virtuales (asíncrono): el hilo del contenedor queda libre
+    // mientras se calcula, y un hilo virtual bloqueado en la red casi no ocupa memoria
+    public static final boolean HILOS_VIRTUALES =
+            Boolean.parseBoolean(System.getProperty("primos.hilosVirtuales", "true"));
+
+    // Control de admisión (FiltroAdmision): costo estimado máximo de los carriles pequeño y mediano;
+    // las peticiones más caras van al carril grande
+    public static final long COSTO_PEQUENO =
+            Long.getLong("primos.admision.costoPequeno", 4_000_000L);
+    public static final long COSTO_MEDIANO =
+            Long.getLong("primos.admision.costoMediano", 100_000_000L);
+
+    // Peticiones que pueden ejecutarse a la vez en cada carril (0 = carril sin límite)
+    public static final int CUPOS_PEQUENO =
+            Integer.getInteger("primos.admision.cuposPequeno", 4 * PARALELISMO);
+    public static final int CUPOS_MEDIANO =
+            Integer.getInteger("primos.admision.cuposMediano", PARALELISMO);
+    public static final int CUPOS_GRANDE =
+            Integer.getInteger("primos.admision.cuposGrande", MAX_CALCULOS_PARALELOS);
+
+    // Milisegundos que una petición espera cupo en su carril antes de rechazarse con 429
+    public static final long ESPERA_ADMISION_MS =
+            Long.getLong("primos.admision.esperaMs", 2_000L);
+
+    private ConfiguracionPrimos() {
+        // Clase de constantes: no se instancia
+    }
+}
@@ -0,0 +1,289 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ConjuntoPrimos
+ *
+ * Guarda de forma compacta una lista ascendente de números primos.
+ * Reemplaza a List<Integer>, que necesita un objeto Integer por cada primo.
+ *
+ * Funcionamiento:
+ * 1. Solo se guarda la diferencia (salto) entre cada primo y el anterior
+ * 2. Los saltos entre primos impares son pares, así que se guarda salto/2
+ *    (el único salto impar, de 2 a 3, se guarda como 0)
+ * 3. Cada valor se codifica como varint: 7 bits por byte, casi siempre 1 byte por primo
+ * 4. Cada PASO_INDICE primos se anota un punto de control (valor y posición)
+ *    para poder saltar directamente a una página sin decodificar desde el principio
+ *
+ * Es inmutable y Serializable, así que se puede guardar en la sesión.
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+public final class ConjuntoPrimos implements Iterable<Integer>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Cada cuántos primos se guarda un punto de control para la paginación
+    static final int PASO_INDICE = 128;
+
+    // Conjunto vacío compartido
+    public static final ConjuntoPrimos VACIO = new Constructor().construir();
+
+    private final byte[] datos;       // Saltos codificados como varint
+    private final int cantidad;       // Cantidad de primos guardados
+    private final int[] valoresIndice;  // Primo en la posición k * PASO_INDICE
+    private final int[] posicionesIndice; // Byte donde empieza el salto siguiente a ese primo
+    private final int ultimo;         // Último primo (0 si está vacío)
+
+    private ConjuntoPrimos(byte[] datos, int cantidad, int[] valoresIndice, int[] posicionesIndice, int ultimo) {
+        this.datos = datos;
+        this.cantidad = cantidad;
+        this.valoresIndice = valoresIndice;
+        this.posicionesIndice = posicionesIndice;
+        this.ultimo = ultimo;
+    }
+
+    //Cantidad de primos del conjunto
+    public int size() {
+        return cantidad;
+    }
+
+    public boolean isEmpty() {
+        return cantidad == 0;
+    }
+
+    //Primer primo del conjunto
+    public int primero() {
+        if (cantidad == 0) {
+            throw new NoSuchElementException("El conjunto de primos está vacío");
+        }
+        return valoresIndice[0];
+    }
+
+    //Último primo del conjunto
+    public int ultimo() {
+        if (cantidad == 0) {
+            throw new NoSuchElementException("El conjunto de primos está vacío");
+        }
+        return ultimo;
+    }
+
+    //Bytes que ocupan los datos codificados (aproximadamente 1 por primo)
+    public long tamanoEnBytes() {
+        return datos.length + 8L * valoresIndice.length;
+    }
+
+    //tamanoEnBytes() aproximado de un conjunto con 'cantidad' primos de 32 bits: 1 byte por salto
+    //(los saltos de 256 o más, que usan 2, son rarísimos) y 8 cada PASO_INDICE primos
+    public static long tamanoEstimado(long cantidad) {
+        return Math.max(0, cantidad - 1) + 8 * ((cantidad + PASO_INDICE - 1) / PASO_INDICE);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return iterador(0);
+    }
+
+    //Iterador que empieza en la posición 'desde' (0 = primer primo)
+    public PrimitiveIterator.OfInt iterador(int desde) {
+        if (desde < 0) {
+            throw new IndexOutOfBoundsException("Posición negativa: " + desde);
+        }
+        return new Iterador(desde);
+    }
+
+    //Posición del primer primo mayor o igual que 'valor' (size() si no hay ninguno)
+    public int indiceDe(int valor) {
+        if (cantidad == 0 || valor > ultimo) {
+            return cantidad;
+        }
+        // Búsqueda binaria del último punto de control con primo <= valor
+        int k = Arrays.binarySearch(valoresIndice, valor);
+        if (k >= 0) {
+            return k * PASO_INDICE;
+        }
+        k = -k - 2; // Punto de control anterior a la posición de inserción
+        if (k < 0) {
+            return 0; // 'valor' es menor que el primer primo
+        }
+        // Avanzar desde el punto de control hasta alcanzar 'valor'
+        int indice = k * PASO_INDICE;
+        PrimitiveIterator.OfInt it = iterador(indice);
+        while (it.nextInt() < valor) {
+            indice++;
+        }
+        return indice;
+    }
+
+    //Recorre todos los primos sin crear objetos Integer
+    public void recorrer(IntConsumer consumidor) {
+        PrimitiveIterator.OfInt it = iterator();
+        while (it.hasNext()) {
+            consumidor.accept(it.nextInt());
+        }
+    }
+
+    //Devuelve una página de hasta 'tamano' primos empezando en la posición 'desde'
+    public int[] pagina(int desde, int tamano) {
+        int hasta = (int) Math.min(cantidad, (long) desde + tamano);
+        if (desde >= hasta) {
+            return new int[0];
+        }
+        int[] resultado = new int[hasta - desde];
+        PrimitiveIterator.OfInt it = iterador(desde);
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = it.nextInt();
+        }
+        return resultado;
+    }
+
+    //Copia todos los primos a un arreglo de int
+    public int[] aArreglo() {
+        return pagina(0, cantidad);
+    }
+
+    //Recorre los datos codificados a partir de un punto de control
+    private final class Iterador implements PrimitiveIterator.OfInt {
+        private int posicion;   // Índice del primo guardado en 'valor'
+        private int byteActual; // Byte donde empieza el salto siguiente
+        private int valor;      // Próximo primo a devolver
+
+        Iterador(int desde) {
+            if (desde >= cantidad) {
+                posicion = cantidad; // Iterador agotado
+                return;
+            }
+            // Ir al punto de control anterior y avanzar hasta 'desde'
+            int k = desde / PASO_INDICE;
+            posicion = k * PASO_INDICE;
+            valor = valoresIndice[k];
+            byteActual = posicionesIndice[k];
+            while (posicion < desde) {
+                avanzar();
+                posicion++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return posicion < cantidad;
+        }
+
+        @Override
+        public int nextInt() {
+            if (posicion >= cantidad) {
+                throw new NoSuchElementException();
+            }
+            int actual = valor;
+            if (++posicion < cantidad) {
+                avanzar(); // Dejar decodificado el siguiente primo
+            }
+            return actual;
+        }
+
+        //Decodifica el salto siguiente y lo suma al valor actual
+        private void avanzar() {
+            int salto = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = datos[byteActual++];
+                salto |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            valor += (salto == 0) ? 1 : 2 * salto;
+        }
+    }
+
+    //Construye un ConjuntoPrimos agregando primos en orden ascendente
+    public static final class Constructor {
+        private byte[] datos = new byte[64];
+        private int longitud;
+        private int cantidad;
+        private int[] valoresIndice = new int[4];
+        private int[] posicionesIndice = new int[4];
+        private int ultimo;
+
+        public Constructor() {
+        }
+
+        //Reserva lugar para 'cantidadEsperada' primos: si se conoce de antemano,
+        //los arreglos no se copian al crecer
+        public Constructor(int cantidadEsperada) {
+            int esperada = Math.max(0, cantidadEsperada);
+            datos = new byte[Math.max(64, esperada + 64)];
+            int puntos = Math.max(4, (esperada + PASO_INDICE - 1) / PASO_INDICE);
+            valoresIndice = new int[puntos];
+            posicionesIndice = new int[puntos];
+        }
+
+        //Agrega un primo mayor que el último agregado
+        public Constructor agregar(int primo) {
+            if (cantidad > 0 && primo <= ultimo) {
+                throw new IllegalArgumentException("Los primos deben agregarse en orden ascendente: " + primo);
+            }
+            if (cantidad > 0) {
+                int salto = primo - ultimo;
+                if (salto > 1 && salto % 2 != 0) {
+                    throw new IllegalArgumentException("Salto impar entre " + ultimo + " y " + primo + ": no son primos");
+                }
+                escribirVarint(salto == 1 ? 0 : salto >>> 1);
+            }
+            if (cantidad % PASO_INDICE == 0) {
+                int k = cantidad / PASO_INDICE;
+                if (k == valoresIndice.length) {
+                    valoresIndice = Arrays.copyOf(valoresIndice, 2 * k);
+                    posicionesIndice = Arrays.copyOf(posicionesIndice, 2 * k);
+                }
+                valoresIndice[k] = primo;
+                posicionesIndice[k] = longitud;
+            }
+            ultimo = primo;
+            cantidad++;
+            return this;
+        }
+
+        //Agrega las primeras 'n' posiciones de un arreglo ascendente
+        public Constructor agregar(int[] primos, int n) {
+            for (int i = 0; i < n; i++) {
+                agregar(primos[i]);
+            }
+            return this;
+        }
+
+        //Agrega todos los primos de otro conjunto (deben ser mayores que el último agregado)
+        public Constructor agregar(ConjuntoPrimos otro) {
+            otro.recorrer(this::agregar);
+            return this;
+        }
+
+        public int size() {
+            return cantidad;
+        }
+
+        //Crea el conjunto inmutable con los arreglos recortados al tamaño justo
+        public ConjuntoPrimos construir() {
+            int puntos = (cantidad + PASO_INDICE - 1) / PASO_INDICE;
+            return new ConjuntoPrimos(
+                    Arrays.copyOf(datos, longitud),
+                    cantidad,
+                    Arrays.copyOf(valoresIndice, puntos),
+                    Arrays.copyOf(posicionesIndice, puntos),
+                    ultimo);
+        }
+
+        private void escribirVarint(int valor) {
+            if (longitud + 5 > datos.length) {
+                datos = Arrays.copyOf(datos, 2 * datos.length);
+            }
+            while ((valor & ~0x7F) != 0) {
+                datos[longitud++] = (byte) ((valor & 0x7F) | 0x80);
+                valor >>>= 7;
+            }
+            datos[longitud++] = (byte) valor;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ContadorPrimos
+ *
+ * Cuenta los primos de un rango sin generarlos cuando hay una forma más rápida:
+ * 1. Si el índice precalculado cubre el rango: dos consultas de rango (IndicePrimos)
+ * 2. Si el rango es ancho y fin no pasa de MAXIMO_PI: pi(fin) - pi(inicio - 1)
+ *    con el método de Lucy_Hedgehog, que cuesta O(x^(3/4)) en tiempo y O(raíz de x)
+ *    en memoria (pi(10^12) en unas décimas de segundo)
+ * 3. Si no: criba el rango contando los bits de cada bloque (o, por encima de
+ *    Integer.MAX_VALUE, recorre el rango con CribaLarga en el pool), sin guardar la lista
+ */
+
+public final class ContadorPrimos {
+
+    // Por debajo de este ancho es más barato cribar la ventana que calcular pi(x)
+    private static final long ANCHO_MINIMO_PI = 1L << 24;
+
+    private ContadorPrimos() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Cantidad de primos entre inicio y fin, con el método más rápido disponible
+    public static long contar(long inicio, long fin) {
+        return contar(inicio, fin, null);
+    }
+
+    //Igual que contar(inicio, fin), pero el recorrido de 64 bits se detiene entre bloques si la
+    //petición se cancela (en ese caso la cantidad solo cubre la parte recorrida).
+    //La criba de 32 bits no se interrumpe: cuenta a lo sumo Integer.MAX_VALUE números
+    static long contar(long inicio, long fin, Cancelacion cancelacion) {
+        if (fin < 2 || fin < inicio) {
+            return 0;
+        }
+        inicio = Math.max(inicio, 1);
+
+        IndicePrimos indice = IndicePrimos.activo();
+        if (fin <= Integer.MAX_VALUE && indice != null && indice.cubre((int) fin)) {
+            return indice.contar((int) inicio, (int) fin);
+        }
+        if (usaPi(inicio, fin)) {
+            return pi(fin) - pi(inicio - 1);
+        }
+
+        if (fin <= Integer.MAX_VALUE) {
+            return new CribaSegmentada((int) fin).contar((int) inicio, (int) fin); // Cuenta bits, sin generar primos
+        }
+        long[] cantidad = {0};
+        new CalculadoraPrimos().recorrerPrimosLargosEnParalelo(inicio, fin, new CribaLarga.ConsumidorSegmentoLargo() {
+            @Override
+            public void aceptar(long[] primos, int n) {
+                cantidad[0] += n;
+            }
+
+            @Override
+            public boolean terminado() {
+                return cancelacion != null && cancelacion.cancelada();
+            }
+        });
+        return cantidad[0];
+    }
+
+    //Indica si contar(inicio, fin) responde sin recorrer el rango
+    public static boolean esRapido(long inicio, long fin) {
+        IndicePrimos indice = IndicePrimos.activo();
+        return (fin <= Integer.MAX_VALUE && indice != null && indice.cubre((int) fin)) || usaPi(inicio, fin);
+    }
+
+    private static boolean usaPi(long inicio, long fin) {
+        return fin <= ConfiguracionPrimos.MAXIMO_PI && fin - inicio + 1 >= ANCHO_MINIMO_PI;
+    }
+
+    //pi(n): cantidad de primos <= n (método de Lucy_Hedgehog)
+    //
+    //S(v) empieza como v - 1 (todos los números de 2 a v) y, para cada primo p <= raíz(n),
+    //se le restan los números cuyo menor factor primo es p: S(v) -= S(v / p) - S(p - 1).
+    //Solo se necesitan los valores v = n / i, que son a lo sumo 2 * raíz(n):
+    //pequenos[v] = S(v) para v <= r y grandes[i] = S(n / i) para i <= r.
+    static long pi(long n) {
+        if (n < 2) {
+            return 0;
+        }
+        int r = (int) CribaLarga.raizEntera(n);
+        int[] pequenos = new int[r + 1]; // S(v) <= v <= r cabe en un int
+        long[] grandes = new long[r + 1];
+        long[] cocientes = new long[r + 1]; // n / i
+        for (int i = 1; i <= r; i++) {
+            pequenos[i] = i - 1;
+            cocientes[i] = n / i;
+            grandes[i] = cocientes[i] - 1;
+        }
+
+        for (int p = 2; p <= r; p++) {
+            if (pequenos[p] == pequenos[p - 1]) {
+                continue; // p no es primo
+            }
+            int primosMenores = pequenos[p - 1];
+            long cuadrado = (long) p * p;
+
+            // Valores grandes: n / i >= p² mientras i <= n / p²
+            int limite = (int) Math.min(r, n / cuadrado);
+            // Con i * p <= r el valor n / (i * p) también es grande
+            int limiteGrande = Math.min(limite, r / p);
+            for (int i = 1; i <= limiteGrande; i++) {
+                grandes[i] -= grandes[i * p] - primosMenores;
+            }
+            // Si no, n / (i * p) = (n / i) / p <= r: se divide multiplicando por 1 / p
+            // y se corrige el redondeo del double (a lo sumo una unidad)
+            double inverso = 1.0 / p;
+            for (int i = limiteGrande + 1; i <= limite; i++) {
+                long v = cocientes[i];
+                int q = (int) (v * inverso);
+                long resto = v - (long) q * p;
+                if (resto < 0) {
+                    q--;
+                } else if (resto >= p) {
+                    q++;
+                }
+                grandes[i] -= pequenos[q] - primosMenores;
+            }
+            // Valores pequeños, de mayor a menor para no usar uno ya actualizado.
+            // Todos los v de [q * p, q * p + p - 1] tienen v / p = q: se recorren por tramos sin dividir
+            for (int q = r / p; q >= p; q--) {
+                int resta = pequenos[q] - primosMenores;
+                int desde = q * p;
+                int hasta = Math.min(r, desde + p - 1);
+                for (int v = desde; v <= hasta; v++) {
+                    pequenos[v] -= resta;
+                }
+            }
+        }
+        return grandes[1];
+    }
+}
@@ -0,0 +1,164 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CribaLarga
+ *
+ * Versión de 64 bits de CribaSegmentada para rangos que pasan de Integer.MAX_VALUE
+ * (por ejemplo, ventanas cerca de 10^18, donde cribar desde 1 es imposible).
+ *
+ * Funcionamiento:
+ * 1. Recorre el rango por bloques de impares con desplazamientos long
+ * 2. Tacha en cada bloque los múltiplos de los primos base hasta un límite B:
+ *    - si B llega a la raíz cuadrada de fin, los que quedan son primos (criba completa)
+ *    - si no, los que quedan se confirman con MillerRabin (criba parcial)
+ * 3. B crece con el ancho del rango: una ventana angosta no paga por cribar
+ *    con millones de primos base que casi no tachan nada
+ */
+
+import java.util.Arrays;
+
+public final class CribaLarga {
+
+    // Mismo tamaño de bloque que la criba de 32 bits
+    private static final int IMPARES_POR_BLOQUE = CribaSegmentada.IMPARES_POR_BLOQUE;
+
+    // Límites de los primos base que se usan para cribar
+    private static final int PRIMOS_BASE_MINIMO = 1 << 16;
+    private static final int PRIMOS_BASE_MAXIMO = 1 << 24;
+
+    //Recibe los primos de cada bloque en orden ascendente
+    @FunctionalInterface
+    public interface ConsumidorSegmentoLargo {
+        // Solo las primeras 'cantidad' posiciones del arreglo son válidas;
+        // el arreglo se reutiliza en el siguiente bloque
+        void aceptar(long[] primos, int cantidad);
+
+        // Se consulta entre bloques: si devuelve true, el recorrido se detiene
+        default boolean terminado() {
+            return false;
+        }
+    }
+
+    //Los primos base hasta PRIMOS_BASE_MAXIMO se calculan una sola vez, la primera vez que se usan
+    private static final class PrimosBase {
+        static final int[] PRIMOS = CribaSegmentada.primosImparesHasta(PRIMOS_BASE_MAXIMO);
+    }
+
+    private CribaLarga() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Recorre los primos entre inicio y fin bloque por bloque
+    public static void cribar(long inicio, long fin, ConsumidorSegmentoLargo consumidor) {
+        if (fin < 2 || fin < inicio) {
+            return; // No hay primos en el rango
+        }
+        long desde = Math.max(inicio, 2);
+        long ancho = fin - desde + 1;
+
+        // Límite B de los primos base: entre el mínimo y el máximo, según el ancho,
+        // y nunca más que la raíz cuadrada de fin
+        long raiz = raizEntera(fin);
+        long limite = Math.min(raiz, Math.max(PRIMOS_BASE_MINIMO, Math.min(PRIMOS_BASE_MAXIMO, ancho)));
+        boolean cribaCompleta = limite >= raiz;
+        int[] primosBase = primosBase((int) limite);
+        int cantidadBase = cantidadHasta(primosBase, (int) limite);
+
+        long[] compuestos = new long[IMPARES_POR_BLOQUE / 64];
+        long[] salida = new long[IMPARES_POR_BLOQUE + 1];
+
+        boolean incluirDos = desde == 2;
+        long primerImpar = (desde % 2 == 0) ? desde + 1 : desde;
+        long ultimoImpar = (fin % 2 == 0) ? fin - 1 : fin;
+        // Cantidad de impares del rango (se cuenta así para no desbordar cerca de Long.MAX_VALUE)
+        long impares = (ultimoImpar >= primerImpar) ? (ultimoImpar - primerImpar) / 2 + 1 : 0;
+
+        for (long hecho = 0; hecho < impares || incluirDos; hecho += IMPARES_POR_BLOQUE) {
+            int cantidad = 0;
+            if (incluirDos) {
+                salida[cantidad++] = 2;
+                incluirDos = false;
+            }
+
+            int enBloque = (int) Math.min(IMPARES_POR_BLOQUE, Math.max(0, impares - hecho));
+            if (enBloque > 0) {
+                long bloque = primerImpar + 2 * hecho;
+                Arrays.fill(compuestos, 0L);
+                marcarCompuestos(compuestos, bloque, enBloque, primosBase, cantidadBase);
+
+                for (int i = 0; i < enBloque; i++) {
+                    if ((compuestos[i >>> 6] & (1L << i)) == 0) {
+                        long numero = bloque + 2L * i;
+                        // En la criba parcial los que sobreviven pueden ser compuestos
+                        if (cribaCompleta || MillerRabin.esPrimo(numero)) {
+                            salida[cantidad++] = numero;
+                        }
+                    }
+                }
+            }
+
+            if (cantidad > 0) {
+                consumidor.aceptar(salida, cantidad);
+            }
+            if (consumidor.terminado()) {
+                return;
+            }
+        }
+    }
+
+    //Tacha en el bloque los múltiplos impares de cada primo base
+    private static void marcarCompuestos(long[] compuestos, long bloque, int enBloque,
+                                         int[] primosBase, int cantidadBase) {
+        long ultimo = bloque + 2L * (enBloque - 1);
+
+        for (int j = 0; j < cantidadBase; j++) {
+            int primo = primosBase[j];
+            long cuadrado = (long) primo * primo;
+            if (cuadrado > ultimo) {
+                break;
+            }
+
+            // Primer múltiplo impar de 'primo' >= bloque (y >= primo²);
+            // si la suma desborda (negativo), el múltiplo queda fuera del rango
+            long resto = bloque % primo;
+            long multiplo = (resto == 0) ? bloque : bloque + (primo - resto);
+            if (multiplo < 0) {
+                continue;
+            }
+            multiplo = Math.max(multiplo, cuadrado);
+            if (multiplo % 2 == 0) {
+                multiplo += primo;
+            }
+            if (multiplo < 0 || multiplo > ultimo) {
+                continue;
+            }
+
+            for (long i = (multiplo - bloque) / 2; i < enBloque; i += primo) {
+                compuestos[(int) (i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+
+    //Arreglo de primos base que contiene a todos los primos hasta 'limite'
+    private static int[] primosBase(int limite) {
+        // Los límites pequeños se calculan al momento; los grandes usan el arreglo compartido
+        return (limite <= PRIMOS_BASE_MINIMO) ? CribaSegmentada.primosImparesHasta(limite) : PrimosBase.PRIMOS;
+    }
+
+    //Cantidad de primos del arreglo que son menores o iguales que 'limite'
+    private static int cantidadHasta(int[] primos, int limite) {
+        int posicion = Arrays.binarySearch(primos, limite);
+        return (posicion >= 0) ? posicion + 1 : -posicion - 1;
+    }
+
+    //Parte entera de la raíz cuadrada, exacta para cualquier long
+    static long raizEntera(long n) {
+        long r = (long) Math.sqrt((double) n);
+        while (r * r > n) {
+            r--;
+        }
+        while (r + 1 <= n / (r + 1)) { // Se compara con una división para no desbordar
+            r++;
+        }
+        return r;
+    }
+}
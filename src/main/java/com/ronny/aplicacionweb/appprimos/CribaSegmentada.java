@@ -0,0 +1,311 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CribaSegmentada
+ *
+ * Implementa la Criba de Eratóstenes segmentada que usa CalculadoraPrimos.
+ *
+ * Funcionamiento:
+ * 1. Calcula una sola vez los primos base hasta la raíz cuadrada de fin
+ * 2. Recorre el rango por bloques de tamaño fijo (pensado para caber en caché)
+ * 3. Rueda módulo 30: cada byte del bloque representa 30 números y solo guarda
+ *    los 8 que no son múltiplos de 2, 3 ni 5 (30k + 1, 7, 11, 13, 17, 19, 23, 29)
+ * 4. Cada bloque empieza como copia de dos patrones precalculados que ya tienen
+ *    tachados los múltiplos de 7, 11, 13 y de 17, 19, 23 (pre-criba)
+ * 5. Tacha los múltiplos de los demás primos base: para cada primo p hay 8 clases
+ *    de múltiplos, y en cada una el siguiente múltiplo está p bytes más adelante
+ *    con el mismo bit, así el bucle interno no divide ni calcula restos
+ * 6. Entrega los primos de cada bloque al consumidor antes de pasar al siguiente
+ *    (el consumidor puede pedir que el recorrido se detenga entre bloques)
+ *
+ * La combinación de patrones y el conteo de bits usan instrucciones SIMD (NucleoVectorial)
+ * si la JVM se inició con --add-modules jdk.incubator.vector; si no, se hacen en Java escalar.
+ *
+ * La memoria usada depende del tamaño del bloque, no del tamaño del rango.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class CribaSegmentada {
+
+    // Cantidad de impares por bloque que usa CribaLarga (256K impares = 32 KB de bits)
+    static final int IMPARES_POR_BLOQUE = 1 << 18;
+
+    // Bytes por bloque de la rueda: 32 KB = 983.040 números (cabe en la caché L1/L2)
+    private static final int BYTES_POR_BLOQUE = 1 << 15;
+
+    // Restos módulo 30 de los 8 candidatos de cada byte (bit 0 a bit 7)
+    private static final int[] RESTOS = {1, 7, 11, 13, 17, 19, 23, 29};
+
+    // Bit que corresponde a cada resto módulo 30 (-1 si el resto no está en la rueda)
+    private static final int[] BIT_DE_RESTO = new int[30];
+
+    // Primos tachados por cada patrón de pre-criba; los patrones se repiten cada
+    // 7*11*13 = 1001 y 17*19*23 = 7429 bytes
+    private static final int[] PRIMOS_PATRON_A = {7, 11, 13};
+    private static final int[] PRIMOS_PATRON_B = {17, 19, 23};
+    private static final int PERIODO_A = 7 * 11 * 13;
+    private static final int PERIODO_B = 17 * 19 * 23;
+
+    // Cada patrón tiene un bloque extra al final para copiar un bloque completo desde cualquier posición
+    private static final byte[] PATRON_A;
+    private static final byte[] PATRON_B;
+
+    // Primer primo que se tacha en cada bloque (los menores los quitan la rueda y los patrones)
+    private static final int PRIMER_PRIMO_CRIBA = 29;
+
+    // Lectura de 8 bytes del bloque como un long (el byte 0 queda en los bits bajos)
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // true si se pueden usar las instrucciones SIMD de jdk.incubator.vector
+    private static final boolean VECTORIAL = detectarVectorial();
+
+    static {
+        Arrays.fill(BIT_DE_RESTO, -1);
+        for (int b = 0; b < RESTOS.length; b++) {
+            BIT_DE_RESTO[RESTOS[b]] = b;
+        }
+        PATRON_A = crearPatron(PRIMOS_PATRON_A, PERIODO_A + BYTES_POR_BLOQUE);
+        PATRON_B = crearPatron(PRIMOS_PATRON_B, PERIODO_B + BYTES_POR_BLOQUE);
+    }
+
+    //Recibe los primos de cada bloque en orden ascendente
+    @FunctionalInterface
+    public interface ConsumidorSegmento {
+        // Solo las primeras 'cantidad' posiciones del arreglo son válidas;
+        // el arreglo se reutiliza en el siguiente bloque
+        void aceptar(int[] primos, int cantidad);
+
+        // Se consulta entre bloques: si devuelve true, el recorrido se detiene
+        default boolean terminado() {
+            return false;
+        }
+    }
+
+    // Primos base mayores que 23 y hasta la raíz cuadrada del fin
+    private final int[] primosBase;
+
+    //Prepara la criba para cualquier rango cuyo fin no supere 'finMaximo'
+    public CribaSegmentada(int finMaximo) {
+        int[] impares = primosImparesHasta((int) Math.sqrt(finMaximo));
+        int desde = 0;
+        while (desde < impares.length && impares[desde] < PRIMER_PRIMO_CRIBA) {
+            desde++;
+        }
+        this.primosBase = Arrays.copyOfRange(impares, desde, impares.length);
+    }
+
+    //Indica si la criba usa instrucciones SIMD (para registro y diagnóstico)
+    public static boolean usaVectorial() {
+        return VECTORIAL;
+    }
+
+    //Recorre los primos entre inicio y fin bloque por bloque
+    public void cribar(int inicio, int fin, ConsumidorSegmento consumidor) {
+        if (fin < 2 || fin < inicio) {
+            return; // No hay primos en el rango
+        }
+
+        // Se trabaja con long para no desbordar cuando fin == Integer.MAX_VALUE
+        long desde = Math.max(inicio, 2);
+        long hasta = fin;
+
+        // El bloque (con 8 bytes extra para leer de a 8) y el buffer de salida se reutilizan
+        byte[] bloque = new byte[BYTES_POR_BLOQUE + 8];
+        int[] salida = new int[8 * BYTES_POR_BLOQUE + 3];
+
+        // 2, 3 y 5 no están en la rueda: se entregan junto con el primer bloque
+        int cantidad = agregarPrimosDeLaRueda(desde, hasta, salida);
+
+        for (long k0 = desde / 30; k0 <= hasta / 30; k0 += BYTES_POR_BLOQUE) {
+            int bytes = prepararBloque(bloque, k0, desde, hasta);
+
+            // Recorrer los bits encendidos de a 8 bytes
+            for (int i = 0; i < bytes; i += 8) {
+                long bits = (long) LONGS.get(bloque, i);
+                while (bits != 0) {
+                    int t = Long.numberOfTrailingZeros(bits);
+                    salida[cantidad++] = (int) (30 * (k0 + i + (t >>> 3)) + RESTOS[t & 7]);
+                    bits &= bits - 1; // Apagar el bit más bajo
+                }
+            }
+
+            if (cantidad > 0) {
+                consumidor.aceptar(salida, cantidad);
+                cantidad = 0;
+            }
+            if (consumidor.terminado()) {
+                return; // El consumidor ya no necesita más bloques
+            }
+        }
+        if (cantidad > 0) {
+            consumidor.aceptar(salida, cantidad); // Rango que solo contenía 2, 3 o 5
+        }
+    }
+
+    //Cantidad de primos entre inicio y fin, contando bits sin generar la lista
+    public long contar(int inicio, int fin) {
+        if (fin < 2 || fin < inicio) {
+            return 0;
+        }
+        long desde = Math.max(inicio, 2);
+        long hasta = fin;
+        byte[] bloque = new byte[BYTES_POR_BLOQUE + 8];
+
+        long total = agregarPrimosDeLaRueda(desde, hasta, new int[3]);
+        for (long k0 = desde / 30; k0 <= hasta / 30; k0 += BYTES_POR_BLOQUE) {
+            int bytes = prepararBloque(bloque, k0, desde, hasta);
+            total += VECTORIAL ? NucleoVectorial.contarBits(bloque, bytes) : contarBitsEscalar(bloque, bytes);
+        }
+        return total;
+    }
+
+    //Deja en el bloque los candidatos primos de los bytes k0.. (hasta BYTES_POR_BLOQUE)
+    //que caen en [desde, hasta]; devuelve cuántos bytes se usaron (los 8 siguientes quedan en 0)
+    private int prepararBloque(byte[] bloque, long k0, long desde, long hasta) {
+        int bytes = (int) Math.min(BYTES_POR_BLOQUE, hasta / 30 - k0 + 1);
+
+        // Pre-criba: bloque = patrón A & patrón B desde la posición de k0 en cada uno
+        int a = (int) (k0 % PERIODO_A);
+        int b = (int) (k0 % PERIODO_B);
+        if (VECTORIAL) {
+            NucleoVectorial.combinar(PATRON_A, a, PATRON_B, b, bloque, bytes);
+        } else {
+            for (int i = 0; i < bytes; i++) {
+                bloque[i] = (byte) (PATRON_A[a + i] & PATRON_B[b + i]);
+            }
+        }
+        Arrays.fill(bloque, bytes, bytes + 8, (byte) 0);
+
+        if (k0 == 0) {
+            // Los patrones tachan a 7..23 (son múltiplos de sí mismos) y el 1 no es primo
+            bloque[0] = (byte) 0b1111_1110;
+        }
+
+        marcarCompuestos(bloque, k0, bytes);
+
+        // Apagar los candidatos fuera de [desde, hasta] en el primer y el último byte
+        recortar(bloque, 0, k0, desde, hasta);
+        recortar(bloque, bytes - 1, k0 + bytes - 1, desde, hasta);
+        return bytes;
+    }
+
+    //Tacha en el bloque los múltiplos de cada primo base, clase por clase de la rueda
+    private void marcarCompuestos(byte[] bloque, long k0, int bytes) {
+        long primerNumero = 30 * k0;
+        long ultimoNumero = 30 * (k0 + bytes) - 1;
+
+        for (int primo : primosBase) {
+            long cuadrado = (long) primo * primo;
+            if (cuadrado > ultimoNumero) {
+                break; // Los primos base están ordenados: ninguno más tacha nada
+            }
+
+            // Múltiplos primo * m con m >= primo (los menores ya los tachó un primo menor)
+            long mMinimo = Math.max(primo, (primerNumero + primo - 1) / primo);
+            int restoMinimo = (int) (mMinimo % 30);
+            for (int resto : RESTOS) {
+                // Menor m >= mMinimo con m ≡ resto (mod 30): primo * m no es múltiplo de 2, 3 ni 5
+                long m = mMinimo + (resto - restoMinimo + 30) % 30;
+                long multiplo = primo * m;
+                long i = multiplo / 30 - k0;
+                if (i >= bytes) {
+                    continue;
+                }
+                // Con m + 30 el múltiplo avanza 30 * primo: 'primo' bytes, mismo bit
+                byte mascara = (byte) ~(1 << BIT_DE_RESTO[(int) (multiplo % 30)]);
+                for (int j = (int) i; j < bytes; j += primo) {
+                    bloque[j] &= mascara;
+                }
+            }
+        }
+    }
+
+    //Apaga los bits del byte 'posicion' (que representa a 30k..30k+29) fuera de [desde, hasta]
+    private static void recortar(byte[] bloque, int posicion, long k, long desde, long hasta) {
+        for (int b = 0; b < 8; b++) {
+            long numero = 30 * k + RESTOS[b];
+            if (numero < desde || numero > hasta) {
+                bloque[posicion] &= (byte) ~(1 << b);
+            }
+        }
+    }
+
+    //Escribe en 'salida' los primos 2, 3 y 5 que caen en el rango; devuelve cuántos son
+    private static int agregarPrimosDeLaRueda(long desde, long hasta, int[] salida) {
+        int cantidad = 0;
+        for (int primo : new int[]{2, 3, 5}) {
+            if (primo >= desde && primo <= hasta) {
+                salida[cantidad++] = primo;
+            }
+        }
+        return cantidad;
+    }
+
+    //Cuenta los bits encendidos de los primeros 'bytes' bytes (los 8 siguientes están en 0)
+    private static long contarBitsEscalar(byte[] bloque, int bytes) {
+        long total = 0;
+        for (int i = 0; i < bytes; i += 8) {
+            total += Long.bitCount((long) LONGS.get(bloque, i));
+        }
+        return total;
+    }
+
+    //Patrón de pre-criba: byte j con los candidatos de 30j..30j+29 que no son múltiplos de 'primos'
+    private static byte[] crearPatron(int[] primos, int longitud) {
+        byte[] patron = new byte[longitud];
+        for (int j = 0; j < longitud; j++) {
+            int bits = 0;
+            for (int b = 0; b < 8; b++) {
+                long numero = 30L * j + RESTOS[b];
+                boolean multiplo = false;
+                for (int primo : primos) {
+                    multiplo |= numero % primo == 0;
+                }
+                if (!multiplo) {
+                    bits |= 1 << b;
+                }
+            }
+            patron[j] = (byte) bits;
+        }
+        return patron;
+    }
+
+    //El módulo de vectores se usa solo si está cargado y el procesador tiene registros SIMD útiles;
+    //NucleoVectorial no se carga si el módulo falta, así que sin él no hay errores de enlace
+    private static boolean detectarVectorial() {
+        if (!ConfiguracionPrimos.VECTORIAL
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return NucleoVectorial.disponible();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    //Criba simple (no segmentada) de los primos impares hasta 'limite'
+    static int[] primosImparesHasta(int limite) {
+        if (limite < 3) {
+            return new int[0];
+        }
+        // esCompuesto[i] representa el impar 2*i + 1
+        boolean[] esCompuesto = new boolean[limite / 2 + 1];
+        int[] primos = new int[limite / 2 + 1];
+        int cantidad = 0;
+
+        for (int i = 1; 2 * i + 1 <= limite; i++) {
+            if (!esCompuesto[i]) {
+                int primo = 2 * i + 1;
+                primos[cantidad++] = primo;
+                for (long j = ((long) primo * primo) / 2; j < esCompuesto.length; j += primo) {
+                    esCompuesto[(int) j] = true;
+                }
+            }
+        }
+        return Arrays.copyOf(primos, cantidad);
+    }
+}
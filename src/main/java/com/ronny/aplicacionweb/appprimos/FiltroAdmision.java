@@ -0,0 +1,238 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: FiltroAdmision
+ *
+ * Control de admisión delante de los servlets que calculan primos: evita que
+ * unas pocas peticiones enormes (por ejemplo, inicio=1&fin=2000000000) ocupen
+ * todos los núcleos y la memoria del servidor.
+ *
+ * Funcionamiento:
+ * 1. Estima el costo de la petición (cuántos números hay que cribar) según el
+ *    ancho del rango, su magnitud y lo que realmente se va a recorrer
+ *    (la página HTML se detiene en MAX_PRIMOS_HTML primos, el PDF no)
+ * 2. Según el costo, la petición entra en un carril: PEQUENO, MEDIANO o GRANDE
+ * 3. Cada carril tiene sus propios cupos (un Semaphore): las consultas baratas
+ *    nunca esperan detrás de las enormes, y la suma de cupos es el presupuesto
+ *    de cálculo de todo el servidor
+ * 4. Si no hay cupo, la petición espera hasta ESPERA_ADMISION_MS; si sigue sin
+ *    cupo, se rechaza con 429 (Too Many Requests) y Retry-After
+ * 5. Si el servlet sigue la petición en modo asíncrono (hilos virtuales), el cupo
+ *    no se libera al volver el filtro: lo libera el propio servlet cuando su hilo
+ *    termina de calcular, con el Runnable del atributo LIBERAR_CUPO
+ *
+ * La anotación @WebFilter lo coloca delante de PrimosServlet, PDFServlet y ResumenServlet
+ */
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+@WebFilter(urlPatterns = {"/PrimosServlet", "/PDFServlet", "/resumen"}, asyncSupported = true)
+public class FiltroAdmision implements Filter {
+
+    // Atributo de la petición con el Runnable que libera el cupo (lo usan los servlets asíncronos)
+    static final String LIBERAR_CUPO = FiltroAdmision.class.getName() + ".liberarCupo";
+
+    // Por encima de Integer.MAX_VALUE cada sobreviviente de la criba pasa por Miller-Rabin
+    private static final int FACTOR_64_BITS = 4;
+
+    //Carriles de admisión: cada uno con sus cupos y su tiempo sugerido de reintento
+    enum Carril {
+        PEQUENO("pequeno", ConfiguracionPrimos.CUPOS_PEQUENO, 1),
+        MEDIANO("mediano", ConfiguracionPrimos.CUPOS_MEDIANO, 5),
+        GRANDE("grande", ConfiguracionPrimos.CUPOS_GRANDE, 30);
+
+        private final String nombre;
+        private final Semaphore cupos;    // null = sin límite
+        private final int reintentoSegundos;
+        private final LongAdder admitidas = new LongAdder();
+        private final LongAdder rechazadas = new LongAdder();
+
+        Carril(String nombre, int cupos, int reintentoSegundos) {
+            this.nombre = nombre;
+            this.cupos = (cupos > 0) ? new Semaphore(cupos, true) : null;
+            this.reintentoSegundos = reintentoSegundos;
+        }
+
+        //Carril que corresponde al costo estimado
+        static Carril para(long costo) {
+            if (costo <= ConfiguracionPrimos.COSTO_PEQUENO) {
+                return PEQUENO;
+            }
+            return (costo <= ConfiguracionPrimos.COSTO_MEDIANO) ? MEDIANO : GRANDE;
+        }
+
+        //Espera un cupo hasta ESPERA_ADMISION_MS; devuelve false si no lo consiguió
+        boolean entrar() {
+            boolean admitida = true;
+            if (cupos != null) {
+                try {
+                    admitida = cupos.tryAcquire(ConfiguracionPrimos.ESPERA_ADMISION_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    admitida = false;
+                }
+            }
+            (admitida ? admitidas : rechazadas).increment();
+            return admitida;
+        }
+
+        void salir() {
+            if (cupos != null) {
+                cupos.release();
+            }
+        }
+
+        String nombre() {
+            return nombre;
+        }
+
+        long admitidas() {
+            return admitidas.sum();
+        }
+
+        long rechazadas() {
+            return rechazadas.sum();
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        Carril carril = Carril.para(estimarCosto((HttpServletRequest) request));
+        if (!carril.entrar()) {
+            HttpServletResponse respuesta = (HttpServletResponse) response;
+            respuesta.setStatus(429); // Too Many Requests
+            respuesta.setIntHeader("Retry-After", carril.reintentoSegundos);
+            respuesta.setContentType("text/plain;charset=UTF-8");
+            respuesta.getWriter().print("El servidor está ocupado con consultas de este tamaño. Intente de nuevo en "
+                    + carril.reintentoSegundos + " segundos.");
+            return;
+        }
+        LiberarCupo liberar = new LiberarCupo(carril);
+        request.setAttribute(LIBERAR_CUPO, liberar);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Una petición asíncrona sigue calculando en otro hilo: ese hilo libera el cupo al terminar
+            if (!request.isAsyncStarted()) {
+                liberar.run();
+            }
+        }
+    }
+
+    //Libera el cupo una sola vez, aunque se llame desde más de un lugar
+    private static final class LiberarCupo implements Runnable {
+        private final Carril carril;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        LiberarCupo(Carril carril) {
+            this.carril = carril;
+        }
+
+        @Override
+        public void run() {
+            if (liberado.compareAndSet(false, true)) {
+                carril.salir();
+            }
+        }
+    }
+
+    //Costo estimado de la petición en "números a cribar"; 0 si los parámetros no son válidos
+    //(el servlet responde el error sin calcular nada)
+    static long estimarCosto(HttpServletRequest request) {
+        try {
+            String ruta = request.getServletPath();
+            if ("/PDFServlet".equals(ruta)) {
+                // El PDF recorre todo el rango guardado en la sesión
+                HttpSession sesion = request.getSession(false);
+                // Number: las sesiones guardadas por versiones anteriores tienen Integer
+                Number inicio = (sesion == null) ? null : (Number) sesion.getAttribute("inicio");
+                Number fin = (sesion == null) ? null : (Number) sesion.getAttribute("fin");
+                if (inicio == null || fin == null) {
+                    return 0;
+                }
+                // Si CachePdf ya lo tiene, se lee del disco (o se responde 304) sin cribar.
+                // Si lo expulsan antes de abrirlo, esta petición lo regenera en el carril chico
+                if (CachePdf.instancia().contiene(inicio.longValue(), fin.longValue())) {
+                    return 1;
+                }
+                return costoRango(fin.longValue(), fin.longValue() - inicio.longValue() + 1);
+            }
+
+            long inicio = Long.parseLong(request.getParameter("inicio"));
+            long fin = Long.parseLong(request.getParameter("fin"));
+            if (inicio < 1 || fin < inicio) {
+                return 0;
+            }
+
+            if ("/resumen".equals(ruta)) {
+                if ("cantidad".equals(request.getParameter("solo")) && ContadorPrimos.esRapido(inicio, fin)) {
+                    return costoConteo(inicio, fin);
+                }
+                return costoRango(fin, fin - inicio + 1);
+            }
+
+            // PrimosServlet: se recorre desde 'desde' hasta completar la página pedida
+            String desdeStr = request.getParameter("desde");
+            long desde = (desdeStr == null) ? inicio : Math.max(inicio, Long.parseLong(desdeStr));
+            long ancho = Math.max(0, fin - desde + 1);
+            long maximoPrimos;
+            boolean html = SalidaPrimos.negociar(request) == null;
+            if (!html) {
+                String cantidadStr = request.getParameter("cantidad");
+                maximoPrimos = (cantidadStr == null) ? 0 : Math.max(0, Long.parseLong(cantidadStr));
+            } else {
+                // Los rangos pequeños se calculan completos para la caché; los grandes se recortan
+                maximoPrimos = (fin - inicio + 1 <= ConfiguracionPrimos.UMBRAL_STREAMING) ? 0 : ConfiguracionPrimos.MAX_PRIMOS_HTML;
+            }
+            if (maximoPrimos > 0) {
+                // Cerca de x hay un primo cada ln(x) números
+                double separacion = Math.max(1, Math.log(fin));
+                ancho = (long) Math.min(ancho, maximoPrimos * separacion * 2);
+            }
+            long costo = costoRango(fin, ancho);
+            if (html && maximoPrimos > 0 && ContadorPrimos.esRapido(inicio, fin)) {
+                // La página HTML recortada muestra además el total del rango (ContadorPrimos.contar)
+                long conteo = costoConteo(inicio, fin);
+                costo = (costo > Long.MAX_VALUE - conteo) ? Long.MAX_VALUE : costo + conteo;
+            }
+            return costo;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    //Costo de ContadorPrimos.contar cuando responde sin recorrer el rango: el índice es casi
+    //gratis; pi(x) cuesta del orden de x^(3/4) y se calcula dos veces si inicio > 1
+    private static long costoConteo(long inicio, long fin) {
+        IndicePrimos indice = IndicePrimos.activo();
+        if (fin <= Integer.MAX_VALUE && indice != null && indice.cubre((int) fin)) {
+            return 1;
+        }
+        long pi = (long) Math.pow(fin, 0.75);
+        return (inicio > 1) ? 2 * pi : pi;
+    }
+
+    //Números a cribar más los primos base de la criba; los rangos de 64 bits cuestan más por número.
+    //Se satura en Long.MAX_VALUE para que un rango enorme nunca parezca barato por desbordamiento
+    private static long costoRango(long fin, long ancho) {
+        long base = Math.min(CribaLarga.raizEntera(fin), 1L << 24);
+        long costo = (ancho > Long.MAX_VALUE - base) ? Long.MAX_VALUE : ancho + base;
+        if (fin > Integer.MAX_VALUE) {
+            costo = (costo > Long.MAX_VALUE / FACTOR_64_BITS) ? Long.MAX_VALUE : costo * FACTOR_64_BITS;
+        }
+        return costo;
+    }
+}
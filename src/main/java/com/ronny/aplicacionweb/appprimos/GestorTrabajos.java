@@ -0,0 +1,102 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: GestorTrabajos
+ *
+ * Ejecuta los TrabajoPrimos en un pool propio y acotado, separado de los
+ * hilos del contenedor: una ráfaga de rangos grandes ya no agota los hilos de Tomcat.
+ *
+ * Funcionamiento:
+ * 1. Un número fijo de hilos calcula los trabajos
+ * 2. La cola de espera tiene un tamaño máximo; si está llena, el trabajo se rechaza
+ * 3. Los trabajos terminados se conservan un tiempo para consultar su estado
+ *    y después se olvidan (los primos calculados quedan en CacheResultados)
+ */
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class GestorTrabajos {
+
+    // Instancia única compartida por todas las peticiones a TrabajosServlet
+    private static final GestorTrabajos INSTANCIA = new GestorTrabajos(
+            ConfiguracionPrimos.HILOS_TRABAJOS, ConfiguracionPrimos.COLA_TRABAJOS,
+            ConfiguracionPrimos.RETENCION_TRABAJOS_SEGUNDOS);
+
+    private final ThreadPoolExecutor executor;
+    private final long retencionMillis;
+    private final Map<String, TrabajoPrimos> trabajos = new ConcurrentHashMap<>();
+
+    GestorTrabajos(int hilos, int cola, long retencionSegundos) {
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), tarea -> {
+                    Thread hilo = new Thread(tarea, "trabajo-primos-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        this.retencionMillis = TimeUnit.SECONDS.toMillis(retencionSegundos);
+    }
+
+    public static GestorTrabajos instancia() {
+        return INSTANCIA;
+    }
+
+    //Encola un trabajo nuevo con la cantidad de primos que tendrá su resultado;
+    //lanza RejectedExecutionException si la cola está llena
+    public TrabajoPrimos enviar(int inicio, int fin, int primosEsperados) {
+        limpiar();
+        TrabajoPrimos trabajo = new TrabajoPrimos(inicio, fin, primosEsperados);
+        trabajos.put(trabajo.getId(), trabajo);
+        try {
+            trabajo.setFuturo(executor.submit(trabajo::ejecutar));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.getId());
+            throw e;
+        }
+        return trabajo;
+    }
+
+    //Devuelve el trabajo con ese identificador, o null si no existe o ya expiró
+    public TrabajoPrimos buscar(String id) {
+        return (id == null) ? null : trabajos.get(id);
+    }
+
+    //Cancela el trabajo; devuelve false si no existe
+    public boolean cancelar(String id) {
+        TrabajoPrimos trabajo = buscar(id);
+        if (trabajo == null) {
+            return false;
+        }
+        trabajo.cancelar();
+        return true;
+    }
+
+    //Trabajos registrados (en cola, en curso o terminados hace poco)
+    public Collection<TrabajoPrimos> trabajos() {
+        return trabajos.values();
+    }
+
+    //Trabajos esperando un hilo libre
+    public int enCola() {
+        return executor.getQueue().size();
+    }
+
+    //Olvida los trabajos que terminaron hace más que el tiempo de retención
+    private void limpiar() {
+        long limite = System.currentTimeMillis() - retencionMillis;
+        Iterator<TrabajoPrimos> it = trabajos.values().iterator();
+        while (it.hasNext()) {
+            long terminadoEn = it.next().getTerminadoEn();
+            if (terminadoEn != 0 && terminadoEn < limite) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: Histograma
+ *
+ * Histograma de valores long sin bloqueos, al estilo de HdrHistogram: guarda
+ * cuántos valores cayeron en cada cubeta y no los valores mismos, así la
+ * memoria es fija (8 KB) y registrar cuesta un incremento atómico.
+ *
+ * Cubetas log-lineales:
+ * - los valores menores que 2^SUB_BITS tienen una cubeta cada uno
+ * - cada potencia de 2 siguiente se divide en 2^SUB_BITS cubetas iguales
+ *
+ * Se publica como histograma de Prometheus: la cantidad acumulada hasta
+ * límites fijos (ver limites), que Prometheus resta entre dos lecturas para
+ * calcular percentiles de una ventana de tiempo. Cada límite es el final de
+ * una cubeta, así la cantidad acumulada es exacta.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class Histograma {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUBCUBETAS = 1 << SUB_BITS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(64 * SUBCUBETAS);
+    private final LongAdder suma = new LongAdder();
+
+    //Registra un valor (los negativos cuentan como 0)
+    void registrar(long valor) {
+        valor = Math.max(valor, 0);
+        cubetas.incrementAndGet(cubeta(valor));
+        suma.add(valor);
+    }
+
+    long suma() {
+        return suma.sum();
+    }
+
+    //Cantidad de valores menores o iguales a cada límite (en orden creciente); la última
+    //posición es el total. Se calculan en una sola pasada, así el total nunca es menor
+    //que la cantidad de un límite aunque se registren valores mientras tanto
+    long[] acumulados(long[] limites) {
+        long[] resultado = new long[limites.length + 1];
+        long acumulado = 0;
+        int k = 0;
+        for (int i = 0; i < cubetas.length(); i++) {
+            acumulado += cubetas.get(i);
+            while (k < limites.length && limiteSuperior(i) >= limites[k]) {
+                resultado[k++] = acumulado;
+            }
+        }
+        resultado[limites.length] = acumulado;
+        return resultado;
+    }
+
+    //Límites fijos para publicar el histograma: 'divisiones' por potencia de 2 (1, 2, 4, 8 o 16)
+    //desde 2^desdeBit hasta 2^hastaBit (como mucho 62). Cada uno es el mayor valor de una cubeta
+    static long[] limites(int desdeBit, int hastaBit, int divisiones) {
+        long[] limites = new long[(hastaBit - desdeBit) * divisiones + 1];
+        int k = 0;
+        long anterior = -1;
+        for (int bit = desdeBit; bit <= hastaBit; bit++) {
+            for (int d = 0; d < divisiones && (d == 0 || bit < hastaBit); d++) {
+                // Valor anterior al tramo d; por debajo de 2^SUB_BITS cada valor tiene su cubeta
+                long limite = (1L << bit) + (1L << bit) / divisiones * d - 1;
+                if (limite > anterior) {
+                    limites[k++] = limite;
+                    anterior = limite;
+                }
+            }
+        }
+        return Arrays.copyOf(limites, k);
+    }
+
+    //Cubeta del valor: el bit más alto elige la potencia de 2 y los SUB_BITS siguientes, la subcubeta
+    private static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int bitAlto = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (bitAlto - SUB_BITS)) & (SUBCUBETAS - 1);
+        return ((bitAlto - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    //Mayor valor que cae en la cubeta i
+    private static long limiteSuperior(int i) {
+        if (i < SUBCUBETAS) {
+            return i;
+        }
+        int desplazamiento = (i >>> SUB_BITS) - 1;
+        long inferior = (long) (SUBCUBETAS + (i & (SUBCUBETAS - 1))) << desplazamiento;
+        return inferior + (1L << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,256 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: IndicePrimos
+ *
+ * Índice precalculado de primalidad guardado en un archivo y leído con
+ * FileChannel.map, para responder cualquier rango sin cribar en cada petición.
+ *
+ * Formato del archivo:
+ * 1. Cabecera de 32 bytes: MAGICO, VERSION, límite y cantidad de bloques
+ * 2. Rango por bloque: un int por bloque con los primos impares anteriores a él
+ * 3. Bits: el bit i vale 1 si el impar 2*i + 1 es primo (el 2 se trata aparte)
+ *
+ * Cada bloque tiene BITS_POR_BLOQUE bits, así que contar los primos de [a, b]
+ * cuesta dos consultas al rango más, como mucho, un bloque de popcount.
+ *
+ * Al reiniciar, si el archivo existe y su cabecera coincide, se reutiliza.
+ */
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public final class IndicePrimos {
+
+    private static final int MAGICO = 0x5052494D; // "PRIM"
+    private static final int VERSION = 1;
+    private static final int CABECERA = 32;
+
+    // 64K bits por bloque = 1024 palabras de 64 bits
+    static final int BITS_POR_BLOQUE = 1 << 16;
+    private static final int PALABRAS_POR_BLOQUE = BITS_POR_BLOQUE / 64;
+
+    // Índice cargado y listo para usar (null mientras se construye o si está desactivado)
+    private static volatile IndicePrimos activo;
+
+    private final MappedByteBuffer buffer;
+    private final int limite;
+    private final int inicioBits; // Byte donde empiezan los bits dentro del archivo
+
+    private IndicePrimos(MappedByteBuffer buffer, int limite, int bloques) {
+        this.buffer = buffer;
+        this.limite = limite;
+        this.inicioBits = inicioBits(bloques);
+    }
+
+    //Índice en uso por CalculadoraPrimos, o null si no hay ninguno
+    public static IndicePrimos activo() {
+        return activo;
+    }
+
+    static void activar(IndicePrimos indice) {
+        activo = indice;
+    }
+
+    //Abre el archivo si es válido para 'limite'; si no, lo construye y luego lo abre
+    public static IndicePrimos cargarOConstruir(Path archivo, int limite) throws IOException {
+        IndicePrimos indice = cargar(archivo, limite);
+        if (indice == null) {
+            construir(archivo, limite);
+            indice = cargar(archivo, limite);
+            if (indice == null) {
+                throw new IOException("El índice recién construido no es válido: " + archivo);
+            }
+        }
+        return indice;
+    }
+
+    //Número más grande que cubre el índice
+    public int limite() {
+        return limite;
+    }
+
+    //Indica si el índice puede responder un rango que termina en 'fin'
+    public boolean cubre(int fin) {
+        return fin <= limite;
+    }
+
+    //Cantidad de primos entre inicio y fin: dos consultas de rango
+    public long contar(int inicio, int fin) {
+        if (!cubre(fin)) {
+            throw new IllegalArgumentException("El índice solo llega hasta " + limite + ": " + fin);
+        }
+        if (fin < inicio) {
+            return 0;
+        }
+        return primosHasta(fin) - (inicio > 1 ? primosHasta(inicio - 1) : 0);
+    }
+
+    //Recorre los primos entre inicio y fin leyendo los bits del archivo
+    public void recorrer(int inicio, int fin, CribaSegmentada.ConsumidorSegmento consumidor) {
+        if (!cubre(fin)) {
+            throw new IllegalArgumentException("El índice solo llega hasta " + limite + ": " + fin);
+        }
+        if (fin < 2 || fin < inicio) {
+            return;
+        }
+
+        int[] salida = new int[BITS_POR_BLOQUE];
+        int cantidad = 0;
+        if (inicio <= 2) {
+            salida[cantidad++] = 2; // El 2 no está en los bits
+        }
+
+        // Bits de los impares dentro del rango
+        long primerBit = Math.max(inicio, 1) / 2;  // Primer impar >= inicio es 2*primerBit + 1
+        long ultimoBit = (fin - 1L) / 2;            // Último impar <= fin
+        for (long palabra = primerBit / 64; palabra <= ultimoBit / 64; palabra++) {
+            long bits = leerPalabra(palabra);
+            // Recortar los bits que quedan fuera del rango en la primera y la última palabra
+            if (palabra == primerBit / 64) {
+                bits &= -1L << primerBit;
+            }
+            if (palabra == ultimoBit / 64) {
+                bits &= -1L >>> (63 - (ultimoBit & 63));
+            }
+            while (bits != 0) {
+                long bit = palabra * 64 + Long.numberOfTrailingZeros(bits);
+                salida[cantidad++] = (int) (2 * bit + 1);
+                bits &= bits - 1; // Apagar el bit más bajo
+            }
+            // Entregar los primos cada vez que se llena el buffer
+            if (cantidad > salida.length - 64) {
+                consumidor.aceptar(salida, cantidad);
+                cantidad = 0;
+                if (consumidor.terminado()) {
+                    return;
+                }
+            }
+        }
+        if (cantidad > 0) {
+            consumidor.aceptar(salida, cantidad);
+        }
+    }
+
+    //Cantidad de primos menores o iguales que n
+    private long primosHasta(int n) {
+        if (n < 2) {
+            return 0;
+        }
+        long bit = (n - 1L) / 2; // Último impar <= n
+        int bloque = (int) (bit / BITS_POR_BLOQUE);
+        long cuenta = 1 + leerRango(bloque); // 1 por el primo 2
+
+        // Popcount desde el inicio del bloque hasta la palabra que contiene 'bit'
+        long primeraPalabra = (long) bloque * PALABRAS_POR_BLOQUE;
+        long ultimaPalabra = bit / 64;
+        for (long palabra = primeraPalabra; palabra < ultimaPalabra; palabra++) {
+            cuenta += Long.bitCount(leerPalabra(palabra));
+        }
+        cuenta += Long.bitCount(leerPalabra(ultimaPalabra) & (-1L >>> (63 - (bit & 63))));
+        return cuenta;
+    }
+
+    private long leerPalabra(long palabra) {
+        return buffer.getLong((int) (inicioBits + 8 * palabra));
+    }
+
+    private int leerRango(int bloque) {
+        return buffer.getInt(CABECERA + 4 * bloque);
+    }
+
+    //Mapea el archivo en modo lectura si existe y su cabecera coincide con 'limite'
+    private static IndicePrimos cargar(Path archivo, int limite) throws IOException {
+        if (!Files.isRegularFile(archivo)) {
+            return null;
+        }
+        int bloques = bloques(limite);
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() != tamanoArchivo(bloques)) {
+                return null;
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGICO || buffer.getInt(4) != VERSION
+                    || buffer.getLong(8) != limite || buffer.getInt(16) != bloques) {
+                return null;
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            return new IndicePrimos(buffer, limite, bloques);
+        }
+    }
+
+    //Criba [1, limite] y escribe el archivo; se usa un temporal para no dejar archivos a medias
+    private static void construir(Path archivo, int limite) throws IOException {
+        int bloques = bloques(limite);
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(temporal.toFile(), "rw");
+             FileChannel canal = raf.getChannel()) {
+            raf.setLength(tamanoArchivo(bloques));
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoArchivo(bloques));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int inicioBits = inicioBits(bloques);
+
+            // Encender el bit de cada primo impar, acumulando una palabra a la vez
+            long[] palabra = {0, 0}; // {índice de la palabra, bits acumulados}
+            new CribaSegmentada(limite).cribar(3, limite, (primos, cantidad) -> {
+                for (int i = 0; i < cantidad; i++) {
+                    long bit = (primos[i] - 1L) / 2;
+                    if (bit / 64 != palabra[0]) {
+                        buffer.putLong((int) (inicioBits + 8 * palabra[0]), palabra[1]);
+                        palabra[0] = bit / 64;
+                        palabra[1] = 0;
+                    }
+                    palabra[1] |= 1L << bit;
+                }
+            });
+            buffer.putLong((int) (inicioBits + 8 * palabra[0]), palabra[1]);
+
+            // Rango por bloque: primos impares en los bloques anteriores
+            long palabras = (bitsTotales(limite) + 63) / 64;
+            int acumulado = 0;
+            for (long p = 0; p < palabras; p++) {
+                if (p % PALABRAS_POR_BLOQUE == 0) {
+                    buffer.putInt((int) (CABECERA + 4 * (p / PALABRAS_POR_BLOQUE)), acumulado);
+                }
+                acumulado += Long.bitCount(buffer.getLong((int) (inicioBits + 8 * p)));
+            }
+
+            // La cabecera se escribe al final: un archivo sin ella nunca se da por válido
+            buffer.putInt(0, MAGICO);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, limite);
+            buffer.putInt(16, bloques);
+            buffer.force();
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Cantidad de impares entre 1 y limite
+    private static long bitsTotales(int limite) {
+        return (limite + 1L) / 2;
+    }
+
+    private static int bloques(int limite) {
+        return (int) ((bitsTotales(limite) + BITS_POR_BLOQUE - 1) / BITS_POR_BLOQUE);
+    }
+
+    // Los bits empiezan alineados a 8 bytes después de la tabla de rangos
+    private static int inicioBits(int bloques) {
+        return (CABECERA + 4 * bloques + 7) & ~7;
+    }
+
+    private static long tamanoArchivo(int bloques) {
+        return inicioBits(bloques) + (long) bloques * PALABRAS_POR_BLOQUE * 8;
+    }
+}
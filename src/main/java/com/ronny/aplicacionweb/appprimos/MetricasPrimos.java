@@ -0,0 +1,161 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: MetricasPrimos
+ *
+ * Métricas de la aplicación, compartidas por todo el servidor y sin bloqueos:
+ * - por etapa (cálculo, HTML, PDF y datos): duración, primos entregados y bytes escritos
+ * - ancho de los rangos consultados
+ * - estado de las cachés, del índice y de la cola de trabajos
+ *
+ * MetricasServlet las publica en /metrics con el formato de texto de Prometheus.
+ * Las duraciones y los anchos son histogramas (_bucket acumuladas, _sum y _count):
+ * los percentiles de una ventana se calculan en Prometheus, por ejemplo
+ * histogram_quantile(0.99, rate(primos_etapa_segundos_bucket[5m])).
+ */
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+final class MetricasPrimos {
+
+    // Cubetas publicadas de las duraciones: dos por potencia de 2 entre 2^16 ns (65 µs) y 2^37 ns (137 s)
+    private static final long[] LIMITES_NANOS = Histograma.limites(16, 37, 2);
+
+    // Cubetas publicadas de los anchos (al menos 1): una por potencia de 2 hasta 2^62
+    private static final long[] LIMITES_ANCHO = Histograma.limites(1, 62, 1);
+
+    //Etapas que se miden por separado
+    enum Etapa {
+        CALCULO("calculo"),  // CalculadoraPrimos.calcularConjunto (resultado completo en memoria)
+        HTML("html"),        // Página de PrimosServlet (incluye el cálculo en streaming si no estaba en caché)
+        PDF("pdf"),          // Generación del reporte en PDFServlet
+        DATOS("datos");      // JSON, CSV o binario de SalidaPrimos
+
+        private final String nombre;
+        private final Histograma nanos = new Histograma();
+        private final LongAdder primos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        Etapa(String nombre) {
+            this.nombre = nombre;
+        }
+
+        //Registra una ejecución de la etapa que empezó en 'inicioNanos' (System.nanoTime())
+        void registrar(long inicioNanos, long cantidadPrimos) {
+            nanos.registrar(System.nanoTime() - inicioNanos);
+            primos.add(cantidadPrimos);
+        }
+
+        void sumarBytes(long cantidad) {
+            bytes.add(cantidad);
+        }
+    }
+
+    // Ancho (fin - inicio + 1) de los rangos consultados
+    private static final Histograma ANCHO_RANGO = new Histograma();
+
+    private MetricasPrimos() {
+        // Clase de utilidades: no se instancia
+    }
+
+    static void registrarRango(long inicio, long fin) {
+        ANCHO_RANGO.registrar(fin - inicio + 1);
+    }
+
+    //Envuelve 'salida' para sumar a la etapa los bytes que se escriban
+    static OutputStream contarBytes(OutputStream salida, Etapa etapa) {
+        return new FilterOutputStream(salida) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                etapa.sumarBytes(1);
+            }
+
+            // FilterOutputStream escribe byte por byte si no se redefine
+            @Override
+            public void write(byte[] b, int desde, int cantidad) throws IOException {
+                out.write(b, desde, cantidad);
+                etapa.sumarBytes(cantidad);
+            }
+        };
+    }
+
+    //Escribe todas las métricas en el formato de texto de Prometheus (versión 0.0.4)
+    static void escribir(PrintWriter out) {
+        tipo(out, "primos_etapa_segundos", "histogram", "Duración de cada etapa de una petición");
+        for (Etapa etapa : Etapa.values()) {
+            histograma(out, "primos_etapa_segundos", "etapa=\"" + etapa.nombre + "\"", etapa.nanos, LIMITES_NANOS, 1e-9);
+        }
+        tipo(out, "primos_emitidos_total", "counter", "Primos entregados por cada etapa");
+        for (Etapa etapa : Etapa.values()) {
+            out.println("primos_emitidos_total{etapa=\"" + etapa.nombre + "\"} " + etapa.primos.sum());
+        }
+        tipo(out, "primos_bytes_total", "counter", "Bytes generados por las etapas pdf y datos");
+        for (Etapa etapa : new Etapa[]{Etapa.PDF, Etapa.DATOS}) {
+            out.println("primos_bytes_total{etapa=\"" + etapa.nombre + "\"} " + etapa.bytes.sum());
+        }
+
+        tipo(out, "primos_ancho_rango", "histogram", "Ancho de los rangos consultados");
+        histograma(out, "primos_ancho_rango", null, ANCHO_RANGO, LIMITES_ANCHO, 1);
+
+        // Tasa de aciertos: rate(acierto) / rate(sum(primos_cache_consultas_total))
+        CacheResultados cache = CacheResultados.instancia();
+        tipo(out, "primos_cache_consultas_total", "counter", "Consultas a CacheResultados por resultado");
+        out.println("primos_cache_consultas_total{resultado=\"acierto\"} " + cache.aciertos());
+        out.println("primos_cache_consultas_total{resultado=\"parcial\"} " + cache.aciertosParciales());
+        out.println("primos_cache_consultas_total{resultado=\"fallo\"} " + cache.fallos());
+        tipo(out, "primos_cache_expulsiones_total", "counter", "Resultados expulsados de CacheResultados");
+        out.println("primos_cache_expulsiones_total " + cache.expulsiones());
+        tipo(out, "primos_cache_bytes", "gauge", "Bytes usados por CacheResultados");
+        out.println("primos_cache_bytes " + cache.bytesUsados());
+        tipo(out, "primos_cache_pdf_bytes", "gauge", "Bytes en disco de CachePdf");
+        out.println("primos_cache_pdf_bytes " + CachePdf.instancia().bytesUsados());
+
+        tipo(out, "primos_admision_total", "counter", "Peticiones admitidas o rechazadas (429) por carril");
+        for (FiltroAdmision.Carril carril : FiltroAdmision.Carril.values()) {
+            out.println("primos_admision_total{carril=\"" + carril.nombre() + "\",resultado=\"admitida\"} " + carril.admitidas());
+            out.println("primos_admision_total{carril=\"" + carril.nombre() + "\",resultado=\"rechazada\"} " + carril.rechazadas());
+        }
+
+        tipo(out, "primos_cancelaciones_total", "counter", "Peticiones detenidas antes de terminar, por motivo");
+        for (Cancelacion.Motivo motivo : Cancelacion.Motivo.values()) {
+            out.println("primos_cancelaciones_total{motivo=\"" + motivo.nombre() + "\"} " + motivo.cantidad());
+        }
+
+        tipo(out, "primos_indice_limite", "gauge", "Límite del índice precalculado (0 si no hay)");
+        IndicePrimos indice = IndicePrimos.activo();
+        out.println("primos_indice_limite " + (indice == null ? 0 : indice.limite()));
+        tipo(out, "primos_trabajos_en_cola", "gauge", "Trabajos asíncronos esperando un hilo");
+        out.println("primos_trabajos_en_cola " + GestorTrabajos.instancia().enCola());
+    }
+
+    private static void tipo(PrintWriter out, String nombre, String tipo, String ayuda) {
+        out.println("# HELP " + nombre + " " + ayuda);
+        out.println("# TYPE " + nombre + " " + tipo);
+    }
+
+    //Cubetas acumuladas, suma y cantidad de un histograma; 'escala' convierte la unidad guardada
+    private static void histograma(PrintWriter out, String nombre, String etiquetas, Histograma histograma,
+                                   long[] limites, double escala) {
+        String prefijo = (etiquetas == null) ? "" : etiquetas + ",";
+        String sufijo = (etiquetas == null) ? "" : "{" + etiquetas + "}";
+        long[] acumulados = histograma.acumulados(limites);
+        for (int i = 0; i < limites.length; i++) {
+            out.println(nombre + "_bucket{" + prefijo + "le=\"" + numero(limites[i] * escala) + "\"} " + acumulados[i]);
+        }
+        long total = acumulados[limites.length];
+        out.println(nombre + "_bucket{" + prefijo + "le=\"+Inf\"} " + total);
+        out.println(nombre + "_sum" + sufijo + " " + numero(histograma.suma() * escala));
+        out.println(nombre + "_count" + sufijo + " " + total);
+    }
+
+    private static String numero(double valor) {
+        return (valor == Math.rint(valor) && Math.abs(valor) < 1e15)
+                ? Long.toString((long) valor)
+                : String.format(Locale.ROOT, "%.9g", valor);
+    }
+}
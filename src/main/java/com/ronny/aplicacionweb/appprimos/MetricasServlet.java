@@ -0,0 +1,30 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: MetricasServlet
+ *
+ * Publica las métricas de MetricasPrimos para que Prometheus las lea:
+ * GET /metrics devuelve texto plano en el formato de exposición 0.0.4.
+ *
+ * La anotación @WebServlet mapea esta clase a la URL "/metrics"
+ */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@WebServlet("/metrics")
+public class MetricasServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        response.setContentType("text/plain;version=0.0.4;charset=UTF-8");
+        PrintWriter out = response.getWriter();
+        MetricasPrimos.escribir(out);
+        out.flush();
+    }
+}
@@ -0,0 +1,146 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: MillerRabin
+ *
+ * Prueba de primalidad determinista para cualquier long positivo (hasta 2^63 - 1).
+ *
+ * Funcionamiento:
+ * 1. Divide primero por los primos pequeños (descarta la mayoría de los compuestos)
+ * 2. Aplica Miller-Rabin con las 7 bases de Jim Sinclair, que bastan para
+ *    todos los números menores que 2^64 (no hay falsos positivos)
+ * 3. Las multiplicaciones modulares usan la forma de Montgomery con
+ *    Math.unsignedMultiplyHigh, sin crear objetos BigInteger
+ */
+
+public final class MillerRabin {
+
+    // Bases deterministas para n < 2^64
+    private static final long[] BASES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+    // Primos pequeños para descartar compuestos antes de Miller-Rabin
+    private static final int[] PRIMOS_PEQUENOS = {3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47};
+
+    private MillerRabin() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Indica si n es primo
+    public static boolean esPrimo(long n) {
+        if (n < 2) {
+            return false;
+        }
+        if (n % 2 == 0) {
+            return n == 2;
+        }
+        for (int p : PRIMOS_PEQUENOS) {
+            if (n % p == 0) {
+                return n == p;
+            }
+        }
+        if (n < 49) {
+            return true; // Menor que 7², sin divisores pequeños
+        }
+        return esPrimoImparGrande(n);
+    }
+
+    //Miller-Rabin para n impar sin factores menores que 50
+    static boolean esPrimoImparGrande(long n) {
+        // n - 1 = d * 2^s con d impar
+        long nMenosUno = n - 1;
+        int s = Long.numberOfTrailingZeros(nMenosUno);
+        long d = nMenosUno >>> s;
+
+        Montgomery m = new Montgomery(n);
+        long uno = m.uno;
+        long menosUno = m.aMontgomery(nMenosUno);
+
+        for (long base : BASES) {
+            long a = base % n;
+            if (a == 0) {
+                continue; // La base es múltiplo de n: no aporta información
+            }
+            long x = m.potencia(m.aMontgomery(a), d);
+            if (x == uno || x == menosUno) {
+                continue;
+            }
+            boolean compuesto = true;
+            for (int r = 1; r < s; r++) {
+                x = m.multiplicar(x, x);
+                if (x == menosUno) {
+                    compuesto = false;
+                    break;
+                }
+            }
+            if (compuesto) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Aritmética de Montgomery módulo un n impar menor que 2^63 (R = 2^64)
+    private static final class Montgomery {
+        private final long n;
+        private final long nInverso; // -n^(-1) mod 2^64
+        private final long r2;       // R^2 mod n
+        final long uno;              // R mod n (el 1 en forma de Montgomery)
+
+        Montgomery(long n) {
+            this.n = n;
+            // Newton: cada paso duplica los bits correctos del inverso (n * n ≡ 1 mod 8)
+            long inv = n;
+            for (int i = 0; i < 5; i++) {
+                inv *= 2 - n * inv;
+            }
+            this.nInverso = -inv;
+            // -n como entero sin signo es 2^64 - n, así que su resto es 2^64 mod n
+            this.uno = Long.remainderUnsigned(-n, n);
+            this.r2 = multiplicarLento(uno, uno);
+        }
+
+        long aMontgomery(long a) {
+            return multiplicar(a, r2);
+        }
+
+        //a * b * R^(-1) mod n (REDC)
+        long multiplicar(long a, long b) {
+            long alto = Math.unsignedMultiplyHigh(a, b);
+            long bajo = a * b;
+            long q = bajo * nInverso;
+            // bajo + q * n es múltiplo de 2^64: solo importa si hubo acarreo
+            long t = alto + Math.unsignedMultiplyHigh(q, n) + (bajo != 0 ? 1 : 0);
+            return (Long.compareUnsigned(t, n) >= 0) ? t - n : t;
+        }
+
+        //base^exp en forma de Montgomery
+        long potencia(long base, long exp) {
+            long resultado = uno;
+            while (exp != 0) {
+                if ((exp & 1) != 0) {
+                    resultado = multiplicar(resultado, base);
+                }
+                base = multiplicar(base, base);
+                exp >>>= 1;
+            }
+            return resultado;
+        }
+
+        //a * b mod n sumando y duplicando (solo se usa una vez para calcular R^2)
+        private long multiplicarLento(long a, long b) {
+            long resultado = 0;
+            for (int i = 63; i >= 0; i--) {
+                resultado = sumar(resultado, resultado);
+                if ((b >>> i & 1) != 0) {
+                    resultado = sumar(resultado, a);
+                }
+            }
+            return resultado;
+        }
+
+        // a + b mod n; a, b < n < 2^63, así que la suma no desborda como entero sin signo
+        private long sumar(long a, long b) {
+            long s = a + b;
+            return (Long.compareUnsigned(s, n) >= 0) ? s - n : s;
+        }
+    }
+}
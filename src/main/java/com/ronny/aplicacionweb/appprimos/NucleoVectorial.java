@@ -0,0 +1,65 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: NucleoVectorial
+ *
+ * Operaciones SIMD de CribaSegmentada con la API de vectores (jdk.incubator.vector).
+ * Cada operación procesa un registro completo por instrucción (32 bytes con AVX2,
+ * 64 con AVX-512) en lugar de un byte o un long a la vez.
+ *
+ * Solo se carga si el módulo está presente (la JVM debe iniciarse con
+ * --add-modules jdk.incubator.vector); CribaSegmentada lo comprueba antes de usarla.
+ */
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+final class NucleoVectorial {
+
+    // El registro más ancho que el procesador maneja de forma nativa
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private NucleoVectorial() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Vale la pena solo con registros de al menos 128 bits (SSE, AVX2, AVX-512, NEON)
+    static boolean disponible() {
+        return BYTES.vectorBitSize() >= 128 && BYTES.vectorByteSize() == LONGS.vectorByteSize();
+    }
+
+    //destino[i] = a[desdeA + i] & b[desdeB + i] para i en [0, cantidad)
+    static void combinar(byte[] a, int desdeA, byte[] b, int desdeB, byte[] destino, int cantidad) {
+        int i = 0;
+        int limite = BYTES.loopBound(cantidad);
+        for (; i < limite; i += BYTES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, desdeA + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, desdeB + i);
+            va.and(vb).intoArray(destino, i);
+        }
+        for (; i < cantidad; i++) {
+            destino[i] = (byte) (a[desdeA + i] & b[desdeB + i]);
+        }
+    }
+
+    //Cantidad de bits encendidos en los primeros 'cantidad' bytes
+    //(el arreglo tiene al menos 8 bytes en 0 después de 'cantidad')
+    static long contarBits(byte[] datos, int cantidad) {
+        long total = 0;
+        int i = 0;
+        int limite = BYTES.loopBound(cantidad);
+        LongVector acumulado = LongVector.zero(LONGS);
+        for (; i < limite; i += BYTES.length()) {
+            // Se leen como longs para contar 64 bits por carril
+            LongVector v = ByteVector.fromArray(BYTES, datos, i).reinterpretAsLongs();
+            acumulado = acumulado.add(v.lanewise(VectorOperators.BIT_COUNT));
+        }
+        total += acumulado.reduceLanes(VectorOperators.ADD);
+        for (; i < cantidad; i++) {
+            total += Integer.bitCount(datos[i] & 0xFF);
+        }
+        return total;
+    }
+}
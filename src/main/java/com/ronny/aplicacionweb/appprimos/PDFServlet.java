@@ -8,12 +8,22 @@ package com.ronny.aplicacionweb.appprimos;
  * de los números primos que fueron calculados previamente por PrimosServlet.
  *
  * Funcionamiento:
- * 1. Recupera los datos de la sesión (que fueron guardados por PrimosServlet)
- * 2. Valida que los datos existan
+ * 1. Recupera el rango de la sesión (que fue guardado por PrimosServlet)
+ * 2. Valida que los datos existan y obtiene los primos de CacheResultados
  * 3. Crea un documento PDF profesional usando iText
  * 4. Formatea y organiza la información en el PDF
  * 5. Envía el PDF al navegador para descarga
  *
+ * La tabla de primos se escribe por lotes de filas (PdfPTable con
+ * setComplete(false)): cada lote se vuelca al documento y las páginas
+ * terminadas salen hacia el navegador, así la memoria no crece con la
+ * cantidad de primos. Las fuentes y el estilo de celda se crean una sola vez.
+ *
+ * Los reportes de rangos chicos se guardan en CachePdf: una segunda descarga del
+ * mismo rango copia el archivo directamente a la respuesta (o responde 304
+ * si el navegador ya lo tiene, según su ETag). Los rangos grandes se escriben
+ * siempre en streaming: el primer byte sale en cuanto se termina la primera página.
+ *
  * La anotación @WebServlet mapea esta clase a la URL "/PDFServlet"
  * Cuando el usuario hace clic en "Descargar PDF", se ejecuta este Servlet
  */
@@ -29,12 +39,28 @@ import jakarta.servlet.http.HttpSession;
 import com.itextpdf.text.*;  // Clases base para crear documentos PDF
 import com.itextpdf.text.pdf.*; // Clases específicas para trabajar con PDFs
 import java.io.IOException;
-import java.util.List;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 
 @WebServlet("/PDFServlet")
 public class PDFServlet extends HttpServlet {
 
+    // Fuentes y colores compartidos por todos los reportes (se crean una sola vez)
+    private static final Font FUENTE_TITULO = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.DARK_GRAY);
+    private static final Font FUENTE_INFO = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL);
+    private static final Font FUENTE_SUBTITULO = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
+    private static final Font FUENTE_CELDA = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
+    private static final Font FUENTE_PIE = new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY);
+    private static final BaseColor FONDO_CELDA = new BaseColor(240, 240, 240);
+
+    // Columnas de la tabla (10 números por fila)
+    private static final int COLUMNAS = 10;
+
+    // Filas que se acumulan antes de volcarlas al documento
+    private static final int FILAS_POR_LOTE = 50;
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
@@ -44,22 +70,19 @@ public class PDFServlet extends HttpServlet {
 
         // Extraer los datos almacenados en la sesión
         // getAttribute() recupera el valor asociado a cada clave
-        // El cast (Integer) convierte el Object devuelto al tipo correcto
-        Integer inicio = (Integer) session.getAttribute("inicio");
-        Integer fin = (Integer) session.getAttribute("fin");
-
-        // @SuppressWarnings("unchecked") evita warnings del compilador
-        // porque estamos haciendo un cast de Object a List<Integer>
-        @SuppressWarnings("unchecked")
-        List<Integer> primos = (List<Integer>) session.getAttribute("primos");
+        // Se leen como Number: las sesiones guardadas por versiones anteriores tienen Integer
+        Number inicioGuardado = (Number) session.getAttribute("inicio");
+        Number finGuardado = (Number) session.getAttribute("fin");
 
         // Si alguno es null, significa que el usuario accedió directamente
         // sin haber calculado primos primero
-        if (inicio == null || fin == null || primos == null) {
+        if (inicioGuardado == null || finGuardado == null) {
             // Redirigir al formulario principal si no hay datos
             response.sendRedirect("index.html");
             return; // Terminar la ejecución
         }
+        long inicio = inicioGuardado.longValue();
+        long fin = finGuardado.longValue();
 
         // setContentType indica que el contenido es un archivo PDF
         response.setContentType("application/pdf");
@@ -69,24 +92,92 @@ public class PDFServlet extends HttpServlet {
         // "filename=" define el nombre del archivo descargado
         response.setHeader("Content-Disposition", "attachment; filename=numeros_primos.pdf");
 
+        // Sin caché de reportes, o con un rango grande o de 64 bits (que la caché no guarda),
+        // el PDF se escribe directamente en response.getOutputStream()
+        CachePdf cache = CachePdf.instancia();
+        if (!cache.admite(inicio, fin)) {
+            escribirPdf(inicio, fin, response.getOutputStream());
+            return;
+        }
+
+        // Con caché, el reporte se genera una vez en disco y se copia a la respuesta
+        try (CachePdf.Reporte reporte = cache.abrir((int) inicio, (int) fin)) {
+            // ETag identifica esta versión del reporte; si el navegador ya la tiene,
+            // basta con responder 304 (Not Modified) sin enviar el archivo
+            response.setHeader("ETag", reporte.etag());
+            if (coincideEtag(request.getHeader("If-None-Match"), reporte.etag())) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            response.setContentLengthLong(reporte.tamano());
+
+            // transferTo deja que el sistema operativo copie el archivo hacia la respuesta
+            WritableByteChannel destino = Channels.newChannel(response.getOutputStream());
+            long enviados = 0;
+            while (enviados < reporte.tamano()) {
+                enviados += reporte.canal().transferTo(enviados, reporte.tamano() - enviados, destino);
+            }
+        }
+    }
+
+    //Compara el encabezado If-None-Match (puede traer varios ETags o "*") con el ETag actual
+    private static boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2); // Un ETag débil también sirve para GET
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Genera el reporte de primos del rango y lo escribe en 'salida'
+    static void escribirPdf(long inicio, long fin, OutputStream salida) throws IOException {
+        long t0 = System.nanoTime();
+        salida = MetricasPrimos.contarBytes(salida, MetricasPrimos.Etapa.PDF);
+
+        // La sesión solo guarda el rango: los primos vienen de la caché compartida.
+        // Los rangos grandes que no están guardados (y los de 64 bits) se calculan en streaming
+        boolean rangoEntero = fin <= Integer.MAX_VALUE;
+        long ancho = fin - inicio + 1;
+        CacheResultados cache = CacheResultados.instancia();
+        ConjuntoPrimos primos = null;
+        if (rangoEntero) {
+            primos = (ancho <= ConfiguracionPrimos.UMBRAL_STREAMING)
+                    ? cache.obtenerOCalcular((int) inicio, (int) fin)
+                    : cache.obtener((int) inicio, (int) fin);
+        }
+
+        // Cantidad de primos si se conoce antes de recorrerlos (-1 si no)
+        long cantidad = -1;
+        IndicePrimos indice = IndicePrimos.activo();
+        if (primos != null) {
+            cantidad = primos.size();
+        } else if (rangoEntero && indice != null && indice.cubre((int) fin)) {
+            cantidad = indice.contar((int) inicio, (int) fin);
+        }
+
         try {
             // GENERACIÓN DEL DOCUMENTO PDF
             // Document es la clase principal que representa el PDF
             Document documento = new Document(PageSize.A4);
 
-            // PdfWriter conecta el documento con response.getOutputStream()
-            // para que el PDF se envíe directamente al navegador
-            PdfWriter.getInstance(documento, response.getOutputStream());
+            // PdfWriter conecta el documento con la salida
+            // para que cada página terminada se envíe directamente al navegador
+            PdfWriter.getInstance(documento, salida);
 
             // Sin esto, no se puede escribir nada en el PDF
             documento.open();
 
 
-            // Crear fuente para el título: Helvetica, tamaño 18, negrita, gris oscuro
-            Font fuenteTitulo = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD, BaseColor.DARK_GRAY);
-
-            // Crear párrafo con el título
-            Paragraph titulo = new Paragraph("Reporte de Números Primos", fuenteTitulo);
+            // Crear párrafo con el título: Helvetica, tamaño 18, negrita, gris oscuro
+            Paragraph titulo = new Paragraph("Reporte de Números Primos", FUENTE_TITULO);
 
             // Centrar el título
             titulo.setAlignment(Element.ALIGN_CENTER);
@@ -98,15 +189,14 @@ public class PDFServlet extends HttpServlet {
             documento.add(titulo);
 
 
-            // Crear fuente normal para información: Helvetica, tamaño 12
-            Font fuenteInfo = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL);
-
             // Agregar párrafo con el rango analizado
-            documento.add(new Paragraph("Rango analizado: " + inicio + " - " + fin, fuenteInfo));
+            documento.add(new Paragraph("Rango analizado: " + inicio + " - " + fin, FUENTE_INFO));
 
             // Agregar párrafo con la cantidad de primos encontrados
-            // primos.size() devuelve el número de elementos en la lista
-            documento.add(new Paragraph("Cantidad de números primos: " + primos.size(), fuenteInfo));
+            // (si todavía no se conoce, se agrega al final del reporte)
+            if (cantidad >= 0) {
+                documento.add(new Paragraph("Cantidad de números primos: " + cantidad, FUENTE_INFO));
+            }
 
             // Agregar una línea en blanco
             documento.add(Chunk.NEWLINE);
@@ -119,11 +209,8 @@ public class PDFServlet extends HttpServlet {
             documento.add(Chunk.NEWLINE);
 
 
-            // Crear fuente para subtítulo: Helvetica, tamaño 14, negrita
-            Font fuenteSubtitulo = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
-
-            // Crear párrafo con el subtítulo
-            Paragraph subtitulo = new Paragraph("Números Primos Encontrados:", fuenteSubtitulo);
+            // Crear párrafo con el subtítulo: Helvetica, tamaño 14, negrita
+            Paragraph subtitulo = new Paragraph("Números Primos Encontrados:", FUENTE_SUBTITULO);
 
             // Agregar espacio de 10 puntos después del subtítulo
             subtitulo.setSpacingAfter(10);
@@ -131,61 +218,38 @@ public class PDFServlet extends HttpServlet {
             // Agregar el subtítulo al documento
             documento.add(subtitulo);
 
-            // Verificar si hay números primos para mostrar
-            if (primos.isEmpty()) {
-                // Si no hay primos, mostrar mensaje informativo
-                documento.add(new Paragraph("No se encontraron números primos en este rango.", fuenteInfo));
-            } else {
-                // Si hay primos, crear una tabla para organizarlos
-
-                // Crear tabla con 10 columnas
-                // Esto significa que habrá 10 números por fila
-                PdfPTable tabla = new PdfPTable(10);
-
-                // setWidthPercentage(100) hace que la tabla ocupe todo el ancho
-                tabla.setWidthPercentage(100);
-
-                // Agregar espacio de 10 puntos antes de la tabla
-                tabla.setSpacingBefore(10);
-
-                // Configurar fuente para las celdas: Helvetica, tamaño 10
-                Font fuenteCelda = new Font(Font.FontFamily.HELVETICA, 10, Font.NORMAL);
-
-                // Recorrer todos los números primos y agregarlos a la tabla
-                for (Integer primo : primos) {
-                    // Crear una celda con el número primo
-                    // toString() convierte el Integer a String
-                    // Phrase es un contenedor de texto con formato
-                    PdfPCell celda = new PdfPCell(new Phrase(primo.toString(), fuenteCelda));
-
-                    // Centrar el texto horizontalmente dentro de la celda
-                    celda.setHorizontalAlignment(Element.ALIGN_CENTER);
-
-                    // setPadding(5) agrega espacio interno de 5 puntos en todos los lados
-                    celda.setPadding(5);
-
-                    // Establecer color de fondo gris claro (RGB: 240, 240, 240)
-                    celda.setBackgroundColor(new BaseColor(240, 240, 240));
-
-                    // Agregar la celda a la tabla
-                    // La tabla automáticamente organiza las celdas en filas de 10
-                    tabla.addCell(celda);
+            // La tabla recibe los primos por lotes y los vuelca al documento
+            TablaPrimos tabla = new TablaPrimos(documento);
+            if (primos != null) {
+                // Resultado guardado: se entrega por porciones
+                for (int i = 0; i < primos.size(); i += COLUMNAS * FILAS_POR_LOTE) {
+                    int[] porcion = primos.pagina(i, COLUMNAS * FILAS_POR_LOTE);
+                    tabla.aceptar(porcion, porcion.length);
                 }
+            } else {
+                // Streaming: CalculadoraPrimos entrega bloque por bloque, en orden,
+                // mientras el pool criba los segmentos siguientes
+                new CalculadoraPrimos().recorrerPrimosLargosEnParalelo(inicio, fin, tabla);
+            }
+            tabla.terminar();
 
-                // Agregar la tabla completa al documento
-                documento.add(tabla);
+            // Verificar si hubo números primos para mostrar
+            if (tabla.total() == 0) {
+                // Si no hay primos, mostrar mensaje informativo
+                documento.add(new Paragraph("No se encontraron números primos en este rango.", FUENTE_INFO));
+            } else if (cantidad < 0) {
+                // La cantidad se conoce ahora, después de recorrer el rango
+                documento.add(Chunk.NEWLINE);
+                documento.add(new Paragraph("Cantidad de números primos: " + tabla.total(), FUENTE_INFO));
             }
 
             // Agregar dos líneas en blanco para separar del contenido
             documento.add(Chunk.NEWLINE);
             documento.add(Chunk.NEWLINE);
 
-            // Crear fuente para el pie: Helvetica, tamaño 9, cursiva, gris
-            Font fuentePie = new Font(Font.FontFamily.HELVETICA, 9, Font.ITALIC, BaseColor.GRAY);
-
-            // Crear párrafo con la fecha y hora de generación
+            // Crear párrafo con la fecha y hora de generación: Helvetica, tamaño 9, cursiva, gris
             // new java.util.Date() obtiene la fecha/hora actual del sistema
-            Paragraph pie = new Paragraph("Generado el: " + new java.util.Date().toString(), fuentePie);
+            Paragraph pie = new Paragraph("Generado el: " + new java.util.Date().toString(), FUENTE_PIE);
 
             // Alinear el pie a la derecha
             pie.setAlignment(Element.ALIGN_RIGHT);
@@ -196,14 +260,115 @@ public class PDFServlet extends HttpServlet {
             // Esto finaliza el PDF y lo envía al navegador
             // Es MUY IMPORTANTE cerrar el documento
             documento.close();
+            MetricasPrimos.Etapa.PDF.registrar(t0, tabla.total());
 
-        } catch (DocumentException e) {
+        } catch (DocumentException | ExceptionConverter e) {
             // DocumentException se lanza si hay problemas al crear el PDF
             // Por ejemplo: errores de formato, problemas con iText, etc.
+            // (ExceptionConverter la envuelve cuando ocurre dentro de la tabla)
 
             // Convertir la excepción de iText a IOException
             // y propagar el error con un mensaje descriptivo
             throw new IOException("Error al generar el PDF: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    //Tabla de primos que se escribe por lotes para no acumular todo el reporte en memoria
+    //(acepta bloques de int desde la caché y de long desde CalculadoraPrimos)
+    private static final class TablaPrimos
+            implements CribaSegmentada.ConsumidorSegmento, CribaLarga.ConsumidorSegmentoLargo {
+        private final Document documento;
+        private PdfPTable tabla;
+        private long total;         // Primos agregados hasta ahora
+        private int celdasEnLote;   // Celdas agregadas desde el último volcado
+
+        TablaPrimos(Document documento) {
+            this.documento = documento;
+        }
+
+        @Override
+        public void aceptar(int[] primos, int cantidad) {
+            for (int i = 0; i < cantidad; i++) {
+                agregar(primos[i]);
+            }
+        }
+
+        @Override
+        public void aceptar(long[] primos, int cantidad) {
+            for (int i = 0; i < cantidad; i++) {
+                agregar(primos[i]);
+            }
+        }
+
+        //Agrega un primo como celda de la tabla
+        private void agregar(long primo) {
+            if (tabla == null) {
+                tabla = crearTabla();
+            }
+            // Phrase es un contenedor de texto con formato;
+            // la celda toma el estilo de la celda por defecto de la tabla
+            tabla.addCell(new Phrase(Long.toString(primo), FUENTE_CELDA));
+            total++;
+
+            // Cada FILAS_POR_LOTE filas completas se vuelcan al documento
+            if (++celdasEnLote == COLUMNAS * FILAS_POR_LOTE) {
+                agregarAlDocumento();
+                celdasEnLote = 0;
+            }
+        }
+
+        // Las dos interfaces definen terminado(): el reporte siempre recorre el rango completo
+        @Override
+        public boolean terminado() {
+            return false;
+        }
+
+        //Vuelca las últimas filas y marca la tabla como completa
+        void terminar() {
+            if (tabla != null) {
+                // completeRow() rellena la última fila si quedó incompleta
+                tabla.completeRow();
+                tabla.setComplete(true);
+                agregarAlDocumento();
+            }
+        }
+
+        long total() {
+            return total;
+        }
+
+        //Crea la tabla con el estilo compartido por todas sus celdas
+        private PdfPTable crearTabla() {
+            // Crear tabla con 10 columnas
+            // Esto significa que habrá 10 números por fila
+            PdfPTable nueva = new PdfPTable(COLUMNAS);
+
+            // setWidthPercentage(100) hace que la tabla ocupe todo el ancho
+            nueva.setWidthPercentage(100);
+
+            // Agregar espacio de 10 puntos antes de la tabla
+            nueva.setSpacingBefore(10);
+
+            // setComplete(false) permite agregar la tabla al documento varias veces:
+            // cada vez se escriben las filas nuevas y se liberan de la memoria
+            nueva.setComplete(false);
+
+            // Estilo de todas las celdas: texto centrado, 5 puntos de espacio interno
+            // y fondo gris claro (RGB: 240, 240, 240)
+            PdfPCell estilo = nueva.getDefaultCell();
+            estilo.setHorizontalAlignment(Element.ALIGN_CENTER);
+            estilo.setPadding(5);
+            estilo.setBackgroundColor(FONDO_CELDA);
+            return nueva;
+        }
+
+        private void agregarAlDocumento() {
+            try {
+                documento.add(tabla);
+            } catch (DocumentException e) {
+                // aceptar() no puede lanzar excepciones comprobadas
+                throw new ExceptionConverter(e);
+            }
+        }
+    }
+}
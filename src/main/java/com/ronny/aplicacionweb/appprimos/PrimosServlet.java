@@ -6,17 +6,26 @@ package com.ronny.aplicacionweb.appprimos;
  *
  * Este Servlet es el controlador principal de la aplicación.
  * Sus responsabilidades son:
- * 1. Recibir el formulario con el rango de números (inicio y fin)
+ * 1. Recibir el formulario con el rango de números (inicio y fin, hasta Long.MAX_VALUE)
  * 2. Validar que los datos sean correctos
- * 3. Calcular los números primos en ese rango
- * 4. Guardar los resultados en la sesión del usuario
- * 5. Mostrar los resultados en una página HTML
+ * 3. Guardar el rango consultado en la sesión del usuario
+ * 4. Calcular los números primos en ese rango (o tomarlos de CacheResultados)
+ * 5. Mostrar los resultados en una página HTML que se envía por partes (streaming):
+ *    los primeros primos llegan al navegador mientras se calculan los siguientes
+ * 6. Con format= o la cabecera Accept, enviar los primos en JSON, CSV o binario
+ *    para otros programas (ver SalidaPrimos)
+ * 7. Atender cada petición en un hilo virtual (modo asíncrono) y detener el cálculo
+ *    entre bloques si el cliente se desconecta, se agota el tiempo o la sesión se
+ *    invalida (ver Cancelacion)
  *
  * La anotación @WebServlet mapea esta clase a la URL "/PrimosServlet"
  */
 
 
 // Importaciones necesarias para el funcionamiento del Servlet
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -25,25 +34,145 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
 
  */
-@WebServlet("/PrimosServlet")
+@WebServlet(urlPatterns = "/PrimosServlet", asyncSupported = true)
 public class PrimosServlet extends HttpServlet {
 
+    // Cantidad de primos por porción al mostrar un resultado guardado en la caché
+    private static final int PORCION = 4096;
+
+    // Tiempo máximo que onError espera a que el hilo virtual deje de escribir
+    // antes de que el contenedor cierre (y reutilice) la respuesta
+    private static final long ESPERA_CIERRE_MS = 5000;
+
+    // Un hilo virtual por petición (null si el modo está desactivado)
+    private ExecutorService hilosVirtuales;
+
+    @Override
+    public void init() throws ServletException {
+        if (ConfiguracionPrimos.HILOS_VIRTUALES) {
+            hilosVirtuales = Executors.newVirtualThreadPerTaskExecutor();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (hilosVirtuales != null) {
+            hilosVirtuales.shutdown();
+        }
+    }
+
+    // El enlace "Ver más" llega por GET con los mismos parámetros
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        doPost(request, response);
+    }
+
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
+        Cancelacion cancelacion = new Cancelacion();
+        if (hilosVirtuales == null || !request.isAsyncSupported()) {
+            atender(request, response, cancelacion); // Modo clásico: en el hilo del contenedor
+            return;
+        }
+
+        // Modo asíncrono: el hilo del contenedor vuelve enseguida y la petición sigue en un hilo virtual.
+        // FiltroAdmision deja en la petición cómo liberar su cupo: se libera cuando el hilo termina
+        Runnable liberarCupo = (Runnable) request.getAttribute(FiltroAdmision.LIBERAR_CUPO);
+        AsyncContext async = request.startAsync();
+        // Sin tiempo límite del contenedor: el tiempo máximo lo aplica Cancelacion entre bloques,
+        // así la respuesta nunca se cierra mientras el hilo virtual todavía está escribiendo
+        async.setTimeout(0);
+        CountDownLatch detenido = new CountDownLatch(1); // El hilo virtual ya no escribe
+        AtomicBoolean cerrada = new AtomicBoolean();       // El contenedor o complete() ya cerró la petición
+        async.addListener(new AsyncListener() {
+            // El contenedor cierra la petición al volver de onError: antes se detiene el cálculo
+            // y se espera a que el hilo virtual suelte la respuesta
+            @Override
+            public void onError(AsyncEvent event) {
+                cerrada.set(true);
+                cancelacion.cancelar(Cancelacion.Motivo.DESCONEXION);
+                try {
+                    detenido.await(ESPERA_CIERRE_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                cerrada.set(true);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                cerrada.set(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        Runnable tarea = () -> {
+            try {
+                atender((HttpServletRequest) async.getRequest(), (HttpServletResponse) async.getResponse(), cancelacion);
+            } catch (IOException | RuntimeException e) {
+                log("Error al calcular los primos", e);
+            } finally {
+                if (liberarCupo != null) {
+                    liberarCupo.run(); // El cálculo terminó de verdad: el cupo queda libre
+                }
+                detenido.countDown();
+                // complete() solo si el contenedor no cerró ya la petición (por ejemplo, tras onError)
+                if (!cerrada.getAndSet(true)) {
+                    try {
+                        async.complete();
+                    } catch (IllegalStateException e) {
+                        // El contenedor la cerró justo entre la comprobación y complete()
+                    }
+                }
+            }
+        };
+        try {
+            hilosVirtuales.execute(tarea);
+        } catch (RejectedExecutionException e) {
+            tarea.run(); // El servlet se está deteniendo: se atiende en este mismo hilo
+        }
+    }
+
+    //Valida la petición y responde con la página HTML o con el formato pedido
+    private void atender(HttpServletRequest request, HttpServletResponse response, Cancelacion cancelacion)
+            throws IOException {
+
+        // Los programas pueden pedir JSON, CSV o binario (format= o cabecera Accept)
+        SalidaPrimos.Formato formato = SalidaPrimos.negociar(request);
+        if (formato != null) {
+            SalidaPrimos.enviar(request, response, formato, cancelacion);
+            return;
+        }
 
         // Indica que vamos a enviar HTML con codificación UTF-8
         // (UTF-8 permite usar tildes, eñes y caracteres especiales)
         response.setContentType("text/html;charset=UTF-8");
 
+        // Un buffer pequeño hace que el contenedor envíe la página por partes
+        response.setBufferSize(8 * 1024);
+
         // El try-with-resources asegura que se cierre automáticamente
         try (PrintWriter out = response.getWriter()) {
+            cancelacion.vigilarSalida(out);
 
             // getParameter("nombre") obtiene el valor del campo con ese nombre
             String inicioStr = request.getParameter("inicio");
@@ -56,9 +185,14 @@ public class PrimosServlet extends HttpServlet {
             }
 
             try {
-                // parseInt() puede lanzar NumberFormatException si no son números
-                int inicio = Integer.parseInt(inicioStr);
-                int fin = Integer.parseInt(finStr);
+                // parseLong() puede lanzar NumberFormatException si no son números
+                // (se usa long para aceptar rangos más allá de Integer.MAX_VALUE)
+                long inicio = Long.parseLong(inicioStr);
+                long fin = Long.parseLong(finStr);
+
+                // 'desde' es opcional: lo usa el enlace "Ver más" para continuar la lista
+                String desdeStr = request.getParameter("desde");
+                long desde = (desdeStr == null) ? inicio : Math.max(inicio, Long.parseLong(desdeStr));
 
                 // - inicio debe ser >= 1 (no hay primos negativos o en cero)
                 // - fin debe ser mayor que inicio (rango válido)
@@ -67,29 +201,27 @@ public class PrimosServlet extends HttpServlet {
                     return;
                 }
 
-                // Se crea una instancia de CalculadoraPrimos (otra clase)
-                // que contiene la lógica para encontrar números primos
-                CalculadoraPrimos calculadora = new CalculadoraPrimos();
-                List<Integer> primos = calculadora.calcularPrimos(inicio, fin);
-
                 // La sesión permite almacenar datos que persisten entre peticiones
-                // Esto es necesario para que PDFServlet pueda acceder a estos datos
+                // Solo se guarda el rango: PDFServlet recupera los primos de la caché
                 HttpSession session = request.getSession();
                 session.setAttribute("inicio", inicio);      // Guarda el número inicial
                 session.setAttribute("fin", fin);            // Guarda el número final
-                session.setAttribute("primos", primos);      // Guarda la lista de primos
+                MetricasPrimos.registrarRango(inicio, fin);
+                cancelacion.vigilarSesion(session);
 
-                // Mostrar los resultados en formato HTML
-                mostrarResultados(out, inicio, fin, primos);
+                // Calcular y mostrar los resultados en formato HTML
+                mostrarResultados(out, inicio, fin, desde, cancelacion);
 
             } catch (NumberFormatException e) {
-                // Se captura si parseInt() falla (si el usuario ingresó texto)
+                // Se captura si parseLong() falla (si el usuario ingresó texto)
                 mostrarError(out, "Error: Los valores ingresados no son números válidos");
             }
         }
     }
 
-    private void mostrarResultados(PrintWriter out, int inicio, int fin, List<Integer> primos) {
+    private void mostrarResultados(PrintWriter out, long inicio, long fin, long desde, Cancelacion cancelacion) {
+        long t0 = System.nanoTime();
+
         // ESTRUCTURA HTML BÁSICA
         out.println("<!DOCTYPE html>");
         out.println("<html lang='es'>");
@@ -131,6 +263,9 @@ public class PrimosServlet extends HttpServlet {
         // Botón volver en color azul
         out.println(".btn-volver { background-color: #2196F3; color: white; }");
 
+        // Botón "Ver más" en color verde
+        out.println(".btn-mas { background-color: #4CAF50; color: white; }");
+
         // Efecto hover: botones se vuelven más transparentes al pasar el mouse
         out.println(".btn:hover { opacity: 0.8; }");
 
@@ -141,32 +276,87 @@ public class PrimosServlet extends HttpServlet {
         out.println("<h1>Resultados de Números Primos</h1>");
 
         // SECCIÓN DE INFORMACIÓN
-        // Muestra el rango analizado y cuántos primos se encontraron
+        // Muestra el rango analizado (la cantidad se muestra al final, cuando se conoce)
         out.println("<div class='info'>");
         out.println("<p><strong>Rango analizado:</strong> " + inicio + " - " + fin + "</p>");
-        out.println("<p><strong>Cantidad de números primos encontrados:</strong> " + primos.size() + "</p>");
         out.println("</div>");
 
         // SECCIÓN DE NÚMEROS PRIMOS
         out.println("<h2>Números Primos Encontrados:</h2>");
+        if (desde > inicio) {
+            out.println("<p>Continuando desde " + desde + "</p>");
+        }
         out.println("<div class='primos'>");
 
-        // Si no hay primos, mostrar mensaje
-        if (primos.isEmpty()) {
-            out.println("<p>No se encontraron números primos en este rango.</p>");
+        // Enviar ya el encabezado: el navegador lo muestra mientras se calculan los primos
+        out.flush();
+
+        // El escritor muestra cada bloque apenas llega y se detiene al llegar al máximo
+        // (o cuando la petición se cancela)
+        EscritorPrimos escritor = new EscritorPrimos(out, ConfiguracionPrimos.MAX_PRIMOS_HTML, cancelacion);
+        long total = -1; // Cantidad total de primos del rango (-1 si no se conoce)
+
+        // Los rangos pequeños pasan por la caché (y quedan listos para el PDF);
+        // los grandes solo se usan si ya están guardados, si no se calculan en streaming.
+        // La caché y el índice solo manejan rangos de 32 bits
+        boolean rangoEntero = fin <= Integer.MAX_VALUE;
+        long ancho = fin - inicio + 1;
+        CacheResultados cache = CacheResultados.instancia();
+        ConjuntoPrimos primos = null;
+        if (rangoEntero) {
+            primos = (ancho <= ConfiguracionPrimos.UMBRAL_STREAMING)
+                    ? cache.obtenerOCalcular((int) inicio, (int) fin)
+                    : cache.obtener((int) inicio, (int) fin);
+        }
+
+        if (primos != null && desde <= fin) {
+            // Mostrar el resultado guardado por porciones, empezando en 'desde'
+            // ('desde' <= fin <= Integer.MAX_VALUE: el cast no desborda)
+            for (int i = primos.indiceDe((int) desde); i < primos.size() && !escritor.terminado(); i += PORCION) {
+                int[] porcion = primos.pagina(i, PORCION);
+                escritor.aceptar(porcion, porcion.length);
+            }
+            total = primos.size();
         } else {
-            // Mostrar cada número primo en una caja verde
-            // El bucle recorre toda la lista de primos
-            for (Integer primo : primos) {
-                out.println("<span class='numero-primo'>" + primo + "</span>");
+            // Streaming: CalculadoraPrimos entrega bloque por bloque sin guardar la lista
+            // (por encima de Integer.MAX_VALUE usa CribaLarga y Miller-Rabin)
+            new CalculadoraPrimos().recorrerPrimosLargos(desde, fin, escritor);
+            if (cancelacion.motivo() != null) {
+                total = -1; // Se detuvo antes de terminar: la cantidad no se conoce
+            } else if (!escritor.recortado() && desde == inicio) {
+                total = escritor.mostrados(); // Se recorrió el rango completo
+            } else if (ContadorPrimos.esRapido(inicio, fin)) {
+                total = ContadorPrimos.contar(inicio, fin); // Índice o pi(x), sin recorrer el rango
             }
         }
+
+        // Si no hay primos, mostrar mensaje
+        if (escritor.mostrados() == 0) {
+            out.println("<p>No se encontraron números primos en este rango.</p>");
+        }
+        out.println("</div>");
+
+        // Cantidad de primos encontrados y aviso si la lista se recortó
+        out.println("<div class='info'>");
+        if (total >= 0) {
+            out.println("<p><strong>Cantidad de números primos encontrados:</strong> " + total + "</p>");
+        }
+        if (escritor.recortado()) {
+            out.println("<p>Se muestran " + escritor.mostrados() + " primos, hasta el " + escritor.ultimo() + ".</p>");
+        }
+        if (cancelacion.motivo() == Cancelacion.Motivo.TIEMPO) {
+            out.println("<p>El cálculo se detuvo al superar el tiempo máximo; se muestran los primos hasta ese momento.</p>");
+        }
         out.println("</div>");
 
         // SECCIÓN DE BOTONES
-        // Dos botones: uno para descargar PDF y otro para volver al inicio
+        // Botones para descargar PDF, ver la siguiente página (si se recortó) y volver al inicio
         out.println("<div class='botones'>");
         out.println("<a href='PDFServlet' class='btn btn-pdf'>Descargar PDF</a>");
+        if (escritor.recortado() && escritor.ultimo() < fin) {
+            out.println("<a href='PrimosServlet?inicio=" + inicio + "&fin=" + fin + "&desde=" + (escritor.ultimo() + 1)
+                    + "' class='btn btn-mas'>Ver más</a>");
+        }
         out.println("<a href='index.html' class='btn btn-volver'>Nuevo Cálculo</a>");
         out.println("</div>");
 
@@ -174,6 +364,72 @@ public class PrimosServlet extends HttpServlet {
         out.println("</div>");
         out.println("</body>");
         out.println("</html>");
+        MetricasPrimos.Etapa.HTML.registrar(t0, escritor.mostrados());
+    }
+
+    //Escribe en la página los primos que entrega CalculadoraPrimos, bloque por bloque
+    //(acepta bloques de int desde la caché o la criba y de long desde CribaLarga)
+    private static final class EscritorPrimos
+            implements CribaSegmentada.ConsumidorSegmento, CribaLarga.ConsumidorSegmentoLargo {
+        private final PrintWriter out;
+        private final int maximo;    // 0 = sin límite
+        private final Cancelacion cancelacion;
+        private long mostrados;      // Primos escritos hasta ahora
+        private long ultimo;         // Último primo escrito
+        private boolean recortado;   // true si se llegó al máximo
+
+        EscritorPrimos(PrintWriter out, int maximo, Cancelacion cancelacion) {
+            this.out = out;
+            this.maximo = maximo;
+            this.cancelacion = cancelacion;
+        }
+
+        @Override
+        public void aceptar(int[] primos, int cantidad) {
+            for (int i = 0; i < cantidad && !recortado; i++) {
+                escribir(primos[i]);
+            }
+            // Enviar este bloque al navegador sin esperar al resto
+            out.flush();
+        }
+
+        @Override
+        public void aceptar(long[] primos, int cantidad) {
+            for (int i = 0; i < cantidad && !recortado; i++) {
+                escribir(primos[i]);
+            }
+            out.flush();
+        }
+
+        //Escribe un primo; se escribe por partes para no crear un String por cada uno
+        private void escribir(long primo) {
+            out.print("<span class='numero-primo'>");
+            out.print(primo);
+            out.println("</span>");
+            mostrados++;
+            ultimo = primo;
+            if (maximo > 0 && mostrados >= maximo) {
+                recortado = true;
+            }
+        }
+
+        // Se consulta entre bloques: se detiene al llegar al máximo o si la petición se canceló
+        @Override
+        public boolean terminado() {
+            return recortado || cancelacion.cancelada();
+        }
+
+        boolean recortado() {
+            return recortado;
+        }
+
+        long mostrados() {
+            return mostrados;
+        }
+
+        long ultimo() {
+            return ultimo;
+        }
     }
 
     private void mostrarError(PrintWriter out, String mensaje) {
@@ -0,0 +1,102 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ResumenPrimos
+ *
+ * Calcula un resumen de los primos de un rango sin guardar la lista:
+ * cantidad, primer y último primo, mayor salto entre primos consecutivos
+ * y cantidad de pares de primos gemelos (p, p + 2).
+ *
+ * Se usa como consumidor de CalculadoraPrimos: recibe los bloques uno a uno
+ * y solo recuerda el último primo visto, así la memoria es constante.
+ */
+
+public final class ResumenPrimos
+        implements CribaSegmentada.ConsumidorSegmento, CribaLarga.ConsumidorSegmentoLargo {
+
+    private long cantidad;
+    private long primero;     // 0 si no hay primos
+    private long ultimo;      // 0 si no hay primos
+    private long mayorSalto;  // 0 si hay menos de dos primos
+    private long saltoDesde;  // Primo donde empieza el mayor salto
+    private long gemelos;
+    private final Cancelacion cancelacion; // null = recorrer siempre el rango completo
+
+    private ResumenPrimos(Cancelacion cancelacion) {
+        this.cancelacion = cancelacion;
+    }
+
+    //Recorre el rango completo con CalculadoraPrimos (en paralelo si es ancho) y devuelve el resumen
+    public static ResumenPrimos calcular(long inicio, long fin) {
+        return calcular(inicio, fin, null);
+    }
+
+    //Igual que calcular(inicio, fin), pero se detiene entre bloques si la petición se cancela
+    //(en ese caso el resumen solo cubre la parte recorrida)
+    static ResumenPrimos calcular(long inicio, long fin, Cancelacion cancelacion) {
+        ResumenPrimos resumen = new ResumenPrimos(cancelacion);
+        new CalculadoraPrimos().recorrerPrimosLargosEnParalelo(inicio, fin, resumen);
+        return resumen;
+    }
+
+    @Override
+    public void aceptar(int[] primos, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            agregar(primos[i]);
+        }
+    }
+
+    @Override
+    public void aceptar(long[] primos, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            agregar(primos[i]);
+        }
+    }
+
+    // Las dos interfaces definen terminado(): el resumen recorre el rango completo salvo cancelación
+    @Override
+    public boolean terminado() {
+        return cancelacion != null && cancelacion.cancelada();
+    }
+
+    //Actualiza el resumen con el siguiente primo (los primos llegan en orden ascendente)
+    private void agregar(long primo) {
+        if (cantidad == 0) {
+            primero = primo;
+        } else {
+            long salto = primo - ultimo;
+            if (salto > mayorSalto) {
+                mayorSalto = salto;
+                saltoDesde = ultimo;
+            }
+            if (salto == 2) {
+                gemelos++;
+            }
+        }
+        ultimo = primo;
+        cantidad++;
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    public long getPrimero() {
+        return primero;
+    }
+
+    public long getUltimo() {
+        return ultimo;
+    }
+
+    public long getMayorSalto() {
+        return mayorSalto;
+    }
+
+    public long getSaltoDesde() {
+        return saltoDesde;
+    }
+
+    public long getGemelos() {
+        return gemelos;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ResumenServlet
+ *
+ * Consulta de solo resumen: responde cuántos primos hay en un rango (y otros
+ * datos) sin generar ni enviar la lista, así sirve para rangos enormes.
+ *
+ * Uso (las respuestas son JSON):
+ * - GET /resumen?inicio=1&fin=1000000000000&solo=cantidad
+ *       solo la cantidad: usa el índice o pi(x) cuando puede (ver ContadorPrimos);
+ *       si tiene que recorrer el rango y supera el tiempo máximo, responde 503
+ * - GET /resumen?inicio=1&fin=100000000
+ *       cantidad, primer y último primo, mayor salto y pares de primos gemelos;
+ *       recorre el rango bloque por bloque sin guardar los primos (ver ResumenPrimos)
+ *
+ * La anotación @WebServlet mapea esta clase a la URL "/resumen"
+ */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@WebServlet("/resumen")
+public class ResumenServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        long inicio;
+        long fin;
+        try {
+            inicio = Long.parseLong(request.getParameter("inicio"));
+            fin = Long.parseLong(request.getParameter("fin"));
+        } catch (NumberFormatException e) {
+            // parseLong(null) también lanza NumberFormatException
+            enviarError(response, HttpServletResponse.SC_BAD_REQUEST, "Los valores ingresados no son números válidos");
+            return;
+        }
+        if (inicio < 1 || fin < inicio) {
+            enviarError(response, HttpServletResponse.SC_BAD_REQUEST, "El rango es inválido. El inicio debe ser >= 1 y el fin debe ser mayor que el inicio.");
+            return;
+        }
+
+        // El conteo y el resumen se detienen entre bloques si superan el tiempo máximo de una petición
+        Cancelacion cancelacion = new Cancelacion();
+        if ("cantidad".equals(request.getParameter("solo"))) {
+            long cantidad = ContadorPrimos.contar(inicio, fin, cancelacion);
+            if (cancelacion.motivo() != null) {
+                // Sin índice ni pi(x) (fin > primos.conteo.maximoPi) el conteo recorre el rango
+                enviarError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        "El conteo superó el tiempo máximo. Pruebe con un rango más pequeño.");
+                return;
+            }
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().print("{\"inicio\":" + inicio + ",\"fin\":" + fin
+                    + ",\"cantidad\":" + cantidad + "}");
+            return;
+        }
+
+        ResumenPrimos resumen = ResumenPrimos.calcular(inicio, fin, cancelacion);
+        if (cancelacion.motivo() != null) {
+            enviarError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "El cálculo superó el tiempo máximo. Pruebe con un rango más pequeño o con solo=cantidad.");
+            return;
+        }
+
+        response.setContentType("application/json;charset=UTF-8");
+        PrintWriter out = response.getWriter();
+        out.print("{\"inicio\":" + inicio + ",\"fin\":" + fin);
+        out.print(",\"cantidad\":" + resumen.getCantidad());
+        if (resumen.getCantidad() > 0) {
+            out.print(",\"primero\":" + resumen.getPrimero());
+            out.print(",\"ultimo\":" + resumen.getUltimo());
+        }
+        if (resumen.getCantidad() > 1) {
+            out.print(",\"mayorSalto\":{\"desde\":" + resumen.getSaltoDesde()
+                    + ",\"hasta\":" + (resumen.getSaltoDesde() + resumen.getMayorSalto())
+                    + ",\"salto\":" + resumen.getMayorSalto() + "}");
+        }
+        out.print(",\"gemelos\":" + resumen.getGemelos() + "}");
+    }
+
+    private void enviarError(HttpServletResponse response, int codigo, String mensaje) throws IOException {
+        response.setStatus(codigo);
+        response.setContentType("application/json;charset=UTF-8");
+        // Los mensajes son fijos y no llevan comillas: no hace falta escaparlos
+        response.getWriter().print("{\"error\":\"" + mensaje + "\"}");
+    }
+}
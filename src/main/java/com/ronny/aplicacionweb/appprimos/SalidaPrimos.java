@@ -0,0 +1,319 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: SalidaPrimos
+ *
+ * Salidas para programas (no para el navegador) de PrimosServlet. El formato
+ * se elige con el parámetro format= o, si no viene, con la cabecera Accept:
+ * - json   (application/json)             [2,3,5,7]
+ * - csv    (text/csv)                     una línea "primo" y luego un primo por línea
+ * - int32  (application/octet-stream)     cada primo como int32 little-endian (solo fin <= 2^31 - 1)
+ * - varint (application/x-primos-varint)  cada primo como la diferencia con el anterior
+ *                                         (el primero, con 0) en varint sin signo LEB128
+ *
+ * Funcionamiento:
+ * 1. Los primos se escriben bloque por bloque a medida que los entrega la criba
+ *    (o la caché, si el rango ya estaba guardado): la memoria no depende del rango
+ * 2. Paginación: desde= (primer número a considerar) y cantidad= (máximo de primos).
+ *    La página siguiente empieza en el último primo recibido + 1; si llegan menos
+ *    primos que 'cantidad', ya no hay más
+ * 3. Si el cliente acepta gzip, la respuesta se comprime (Content-Encoding: gzip);
+ *    siempre lleva Vary: Accept-Encoding, comprimida o no
+ */
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+final class SalidaPrimos {
+
+    // Cantidad de primos por porción al enviar un resultado guardado en la caché
+    private static final int PORCION = 4096;
+
+    //Formatos disponibles y su tipo de contenido
+    enum Formato {
+        JSON("json", "application/json;charset=UTF-8"),
+        CSV("csv", "text/csv;charset=UTF-8"),
+        INT32("int32", "application/octet-stream"),
+        VARINT("varint", "application/x-primos-varint");
+
+        private final String nombre;
+        private final String tipo;
+
+        Formato(String nombre, String tipo) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+        }
+
+        //Tipo de contenido sin parámetros (por ejemplo "text/csv")
+        private String tipoBase() {
+            int puntoYComa = tipo.indexOf(';');
+            return (puntoYComa < 0) ? tipo : tipo.substring(0, puntoYComa);
+        }
+    }
+
+    private SalidaPrimos() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Formato pedido, o null si hay que responder con la página HTML de siempre
+    static Formato negociar(HttpServletRequest request) {
+        String parametro = request.getParameter("format");
+        if (parametro != null) {
+            for (Formato formato : Formato.values()) {
+                if (formato.nombre.equalsIgnoreCase(parametro)) {
+                    return formato;
+                }
+            }
+            return null; // format=html o un valor desconocido
+        }
+
+        // Accept: se usa el primer tipo de la lista que se conozca (sin mirar los valores q)
+        String accept = request.getHeader("Accept");
+        if (accept == null) {
+            return null;
+        }
+        for (String parte : accept.split(",")) {
+            String tipo = parte.split(";")[0].trim().toLowerCase(Locale.ROOT);
+            if (tipo.equals("text/html") || tipo.equals("*/*")) {
+                return null; // Los navegadores piden HTML primero
+            }
+            for (Formato formato : Formato.values()) {
+                if (formato.tipoBase().equals(tipo)) {
+                    return formato;
+                }
+            }
+        }
+        return null;
+    }
+
+    //Valida los parámetros y envía los primos del rango en el formato pedido
+    static void enviar(HttpServletRequest request, HttpServletResponse response, Formato formato,
+                       Cancelacion cancelacion) throws IOException {
+        long inicio;
+        long fin;
+        long desde;
+        long cantidad;
+        try {
+            inicio = Long.parseLong(request.getParameter("inicio"));
+            fin = Long.parseLong(request.getParameter("fin"));
+            String desdeStr = request.getParameter("desde");
+            desde = (desdeStr == null) ? inicio : Math.max(inicio, Long.parseLong(desdeStr));
+            String cantidadStr = request.getParameter("cantidad");
+            cantidad = (cantidadStr == null) ? 0 : Math.max(0, Long.parseLong(cantidadStr));
+        } catch (NumberFormatException e) {
+            // parseLong(null) también lanza NumberFormatException
+            enviarError(response, "Los valores ingresados no son números válidos");
+            return;
+        }
+        if (inicio < 1 || fin < inicio) {
+            enviarError(response, "El rango es inválido. El inicio debe ser >= 1 y el fin debe ser mayor que el inicio.");
+            return;
+        }
+        if (formato == Formato.INT32 && fin > Integer.MAX_VALUE) {
+            enviarError(response, "El formato int32 solo admite fin <= " + Integer.MAX_VALUE + ": use format=varint");
+            return;
+        }
+
+        MetricasPrimos.registrarRango(inicio, fin);
+        long t0 = System.nanoTime();
+        response.setContentType(formato.tipo);
+        response.setBufferSize(8 * 1024);
+        boolean gzip = aceptaGzip(request);
+        // La misma URL puede ir comprimida o no: las cachés intermedias deben separarlas
+        response.addHeader("Vary", "Accept-Encoding");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+
+        OutputStream salida = response.getOutputStream();
+        if (gzip) {
+            // syncFlush: cada flush envía lo comprimido hasta ahora, sin esperar al final
+            salida = new GZIPOutputStream(salida, 8 * 1024, true);
+        }
+        EscritorBinario escritor = new EscritorBinario(salida, formato, cantidad, cancelacion);
+        try {
+            escritor.abrir();
+            recorrer(inicio, desde, fin, cantidad == 0, escritor);
+            escritor.cerrar();
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // Normalmente, el cliente cerró la conexión
+        }
+        if (gzip) {
+            ((GZIPOutputStream) salida).finish();
+        }
+        salida.flush();
+        MetricasPrimos.Etapa.DATOS.registrar(t0, escritor.escritos());
+    }
+
+    //Entrega los primos de [desde, fin] desde la caché (si el rango [inicio, fin] ya está) o desde la criba;
+    //sin límite de cantidad se recorre todo el rango, así que la criba puede adelantar segmentos en el pool
+    private static void recorrer(long inicio, long desde, long fin, boolean completo, EscritorBinario escritor) {
+        ConjuntoPrimos primos = (fin <= Integer.MAX_VALUE)
+                ? CacheResultados.instancia().obtener((int) inicio, (int) fin)
+                : null;
+        if (primos != null && desde <= fin) { // Con desde > fin el cast a int podría desbordar
+            for (int i = primos.indiceDe((int) desde); i < primos.size() && !escritor.terminado(); i += PORCION) {
+                int[] porcion = primos.pagina(i, PORCION);
+                escritor.aceptar(porcion, porcion.length);
+            }
+        } else if (completo) {
+            new CalculadoraPrimos().recorrerPrimosLargosEnParalelo(desde, fin, escritor);
+        } else {
+            new CalculadoraPrimos().recorrerPrimosLargos(desde, fin, escritor);
+        }
+    }
+
+    private static boolean aceptaGzip(HttpServletRequest request) {
+        String encoding = request.getHeader("Accept-Encoding");
+        return encoding != null && encoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private static void enviarError(HttpServletResponse response, String mensaje) throws IOException {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().print(mensaje);
+    }
+
+    //Escribe los primos en un buffer de bytes propio (sin crear objetos por primo)
+    //y lo envía al cliente al final de cada bloque
+    private static final class EscritorBinario
+            implements CribaSegmentada.ConsumidorSegmento, CribaLarga.ConsumidorSegmentoLargo {
+        private final OutputStream salida;
+        private final Formato formato;
+        private final long maximo;   // 0 = sin límite
+        private final Cancelacion cancelacion;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int posicion;
+        private long escritos;
+        private long anterior;       // Último primo escrito (para varint)
+
+        EscritorBinario(OutputStream salida, Formato formato, long maximo, Cancelacion cancelacion) {
+            this.salida = salida;
+            this.formato = formato;
+            this.maximo = maximo;
+            this.cancelacion = cancelacion;
+        }
+
+        void abrir() {
+            if (formato == Formato.JSON) {
+                agregarByte('[');
+            } else if (formato == Formato.CSV) {
+                agregarTexto("primo\n");
+            }
+        }
+
+        void cerrar() {
+            if (formato == Formato.JSON) {
+                agregarByte(']');
+            }
+            vaciar();
+        }
+
+        @Override
+        public void aceptar(int[] primos, int cantidad) {
+            for (int i = 0; i < cantidad && !completo(); i++) {
+                escribir(primos[i]);
+            }
+            vaciar();
+        }
+
+        @Override
+        public void aceptar(long[] primos, int cantidad) {
+            for (int i = 0; i < cantidad && !completo(); i++) {
+                escribir(primos[i]);
+            }
+            vaciar();
+        }
+
+        // Se consulta entre bloques: página completa o petición cancelada (la desconexión
+        // del cliente también se nota antes, porque escribir lanza IOException)
+        @Override
+        public boolean terminado() {
+            return completo() || cancelacion.cancelada();
+        }
+
+        private boolean completo() {
+            return maximo > 0 && escritos >= maximo;
+        }
+
+        long escritos() {
+            return escritos;
+        }
+
+        private void escribir(long primo) {
+            // Un primo ocupa como mucho 20 bytes en cualquier formato
+            if (posicion > buffer.length - 24) {
+                vaciar();
+            }
+            switch (formato) {
+                case JSON:
+                    if (escritos > 0) {
+                        agregarByte(',');
+                    }
+                    agregarDecimal(primo);
+                    break;
+                case CSV:
+                    agregarDecimal(primo);
+                    agregarByte('\n');
+                    break;
+                case INT32:
+                    int valor = (int) primo;
+                    agregarByte(valor);
+                    agregarByte(valor >>> 8);
+                    agregarByte(valor >>> 16);
+                    agregarByte(valor >>> 24);
+                    break;
+                case VARINT:
+                    long diferencia = primo - anterior;
+                    while ((diferencia & ~0x7FL) != 0) {
+                        agregarByte((int) (diferencia & 0x7F) | 0x80);
+                        diferencia >>>= 7;
+                    }
+                    agregarByte((int) diferencia);
+                    break;
+            }
+            anterior = primo;
+            escritos++;
+        }
+
+        //Escribe los dígitos decimales de un número positivo
+        private void agregarDecimal(long numero) {
+            int digitos = 1;
+            for (long n = numero; n >= 10; n /= 10) {
+                digitos++;
+            }
+            for (int i = posicion + digitos - 1; i >= posicion; i--) {
+                buffer[i] = (byte) ('0' + numero % 10);
+                numero /= 10;
+            }
+            posicion += digitos;
+        }
+
+        private void agregarTexto(String texto) {
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(bytes, 0, buffer, posicion, bytes.length);
+            posicion += bytes.length;
+        }
+
+        private void agregarByte(int b) {
+            buffer[posicion++] = (byte) b;
+        }
+
+        //Envía al cliente lo acumulado en el buffer
+        private void vaciar() {
+            try {
+                salida.write(buffer, 0, posicion);
+                salida.flush();
+                MetricasPrimos.Etapa.DATOS.sumarBytes(posicion);
+                posicion = 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: TrabajoPrimos
+ *
+ * Un cálculo de primos que se ejecuta en segundo plano (ver GestorTrabajos).
+ *
+ * Funcionamiento:
+ * 1. Se crea en estado EN_COLA con un identificador único
+ * 2. Al ejecutarse recorre el rango bloque por bloque con CalculadoraPrimos
+ *    (los rangos anchos se criban por segmentos en el pool compartido)
+ * 3. Después de cada bloque actualiza el progreso (bloques, primos, último primo)
+ *    y revisa si fue cancelado
+ * 4. Al terminar deja el ConjuntoPrimos resultante en CacheResultados: el trabajo no
+ *    guarda una copia propia, así los resultados respetan el presupuesto de la caché.
+ *    TrabajosServlet solo acepta trabajos cuyo resultado cabe; si aun así no se
+ *    puede guardar, el trabajo termina en ERROR (nunca TERMINADO sin resultado)
+ */
+
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+public final class TrabajoPrimos implements CribaSegmentada.ConsumidorSegmento {
+
+    //Estados posibles de un trabajo
+    public enum Estado {
+        EN_COLA, EN_CURSO, TERMINADO, CANCELADO, ERROR
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final int inicio;
+    private final int fin;
+    private final int primosEsperados; // Cantidad de primos del rango, calculada al crear el trabajo
+
+    // Se leen desde otros hilos (consultas de progreso), por eso son volatile
+    private volatile Estado estado = Estado.EN_COLA;
+    private volatile long bloques;        // Bloques procesados
+    private volatile long primos;         // Primos encontrados hasta ahora
+    private volatile int ultimoPrimo;     // Último primo encontrado
+    private volatile boolean cancelado;
+    private volatile String error;
+    private volatile long terminadoEn;    // System.currentTimeMillis() al terminar (0 si no terminó)
+    private volatile Future<?> futuro;
+
+    // Solo lo usa el hilo que ejecuta el trabajo
+    private ConjuntoPrimos.Constructor constructor;
+
+    TrabajoPrimos(int inicio, int fin, int primosEsperados) {
+        this.inicio = inicio;
+        this.fin = fin;
+        this.primosEsperados = primosEsperados;
+    }
+
+    //Calcula el rango; lo llama el executor de GestorTrabajos
+    void ejecutar() {
+        if (cancelado) {
+            terminar(Estado.CANCELADO);
+            return;
+        }
+        estado = Estado.EN_CURSO;
+        try {
+            constructor = new ConjuntoPrimos.Constructor(primosEsperados);
+            new CalculadoraPrimos().recorrerPrimosEnParalelo(inicio, fin, this);
+            if (cancelado) {
+                terminar(Estado.CANCELADO);
+            } else {
+                ConjuntoPrimos resultado = constructor.construir();
+                constructor = null;
+                if (CacheResultados.instancia().guardar(inicio, fin, resultado)) {
+                    terminar(Estado.TERMINADO);
+                } else {
+                    error = "El resultado (" + resultado.tamanoEnBytes() + " bytes) no cabe en CacheResultados";
+                    terminar(Estado.ERROR);
+                }
+            }
+        } catch (RuntimeException | OutOfMemoryError e) {
+            error = e.toString();
+            terminar(Estado.ERROR);
+        } finally {
+            constructor = null; // Liberar la memoria del cálculo parcial
+        }
+    }
+
+    @Override
+    public void aceptar(int[] bloque, int cantidad) {
+        constructor.agregar(bloque, cantidad);
+        bloques++;
+        primos += cantidad;
+        ultimoPrimo = bloque[cantidad - 1];
+    }
+
+    // Se consulta entre bloques: así un trabajo cancelado se detiene enseguida
+    @Override
+    public boolean terminado() {
+        return cancelado;
+    }
+
+    //Pide que el trabajo se detenga; si todavía está en cola, no llega a ejecutarse
+    void cancelar() {
+        cancelado = true;
+        Future<?> f = futuro;
+        if (estado == Estado.EN_COLA && f != null && f.cancel(false)) {
+            terminar(Estado.CANCELADO); // Estaba en cola: el executor ya no lo ejecutará
+        }
+    }
+
+    void setFuturo(Future<?> futuro) {
+        this.futuro = futuro;
+    }
+
+    private void terminar(Estado estadoFinal) {
+        terminadoEn = System.currentTimeMillis();
+        estado = estadoFinal;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getInicio() {
+        return inicio;
+    }
+
+    public int getFin() {
+        return fin;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public long getBloques() {
+        return bloques;
+    }
+
+    public long getPrimos() {
+        return primos;
+    }
+
+    public int getUltimoPrimo() {
+        return ultimoPrimo;
+    }
+
+    //Porcentaje aproximado del rango ya recorrido (0 a 100)
+    public int getPorcentaje() {
+        if (estado == Estado.TERMINADO) {
+            return 100;
+        }
+        if (ultimoPrimo == 0) {
+            return 0;
+        }
+        return (int) (100L * ((long) ultimoPrimo - inicio) / Math.max(1L, (long) fin - inicio));
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    //Resultado del cálculo tomado de CacheResultados (null si todavía no terminó
+    //o si la caché ya lo expulsó para hacer lugar a otros resultados)
+    public ConjuntoPrimos getResultado() {
+        return (estado == Estado.TERMINADO) ? CacheResultados.instancia().obtener(inicio, fin) : null;
+    }
+
+    long getTerminadoEn() {
+        return terminadoEn;
+    }
+}
@@ -0,0 +1,183 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: TrabajosServlet
+ *
+ * API de cálculo asíncrono: en lugar de bloquear un hilo del contenedor
+ * durante todo el cálculo, devuelve enseguida un identificador de trabajo.
+ *
+ * Uso (todas las respuestas son JSON):
+ * - POST   /trabajos?inicio=1&fin=100000000   crea el trabajo (202), 429 si la cola está llena
+ *                                              o 413 si el resultado no cabría en CacheResultados
+ * - GET    /trabajos?id=...                    estado y progreso del trabajo
+ * - GET    /trabajos?id=...&desde=0&cantidad=1000   página de primos cuando terminó
+ *                                                  (410 si CacheResultados ya expulsó el resultado)
+ * - DELETE /trabajos?id=...                    cancela el trabajo
+ *
+ * La anotación @WebServlet mapea esta clase a la URL "/trabajos"
+ */
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.RejectedExecutionException;
+
+@WebServlet("/trabajos")
+public class TrabajosServlet extends HttpServlet {
+
+    // Primos por página al leer el resultado
+    private static final int CANTIDAD_POR_DEFECTO = 1000;
+    private static final int CANTIDAD_MAXIMA = 100_000;
+
+    //Crea un trabajo nuevo
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        int inicio;
+        int fin;
+        try {
+            inicio = Integer.parseInt(request.getParameter("inicio"));
+            fin = Integer.parseInt(request.getParameter("fin"));
+        } catch (NumberFormatException e) {
+            // parseInt(null) también lanza NumberFormatException
+            enviarError(response, HttpServletResponse.SC_BAD_REQUEST, "Los valores ingresados no son números válidos");
+            return;
+        }
+        if (inicio < 1 || fin < inicio) {
+            enviarError(response, HttpServletResponse.SC_BAD_REQUEST,
+                    "El rango es inválido. El inicio debe ser >= 1 y el fin debe ser mayor que el inicio.");
+            return;
+        }
+
+        // El resultado completo se guarda en CacheResultados: se rechaza ahora el que no cabría,
+        // en lugar de calcularlo para descartarlo al final (contar usa el índice o pi(x))
+        long primos = ContadorPrimos.contar(inicio, fin);
+        long bytes = ConjuntoPrimos.tamanoEstimado(primos);
+        long maximo = CacheResultados.instancia().maximoPorResultado();
+        if (bytes > maximo) {
+            enviarError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "El rango tiene " + primos + " primos (unos " + bytes + " bytes) y un resultado puede ocupar hasta "
+                            + maximo + " bytes: use un rango más pequeño, /resumen o PrimosServlet con format=varint");
+            return;
+        }
+
+        TrabajoPrimos trabajo;
+        try {
+            trabajo = GestorTrabajos.instancia().enviar(inicio, fin, (int) primos);
+        } catch (RejectedExecutionException e) {
+            // Cola llena: el cliente debe reintentar más tarde
+            response.setIntHeader("Retry-After", 5);
+            enviarError(response, 429, "Hay demasiados trabajos en cola");
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        response.setHeader("Location", request.getRequestURI() + "?id=" + trabajo.getId());
+        escribirEstado(response, trabajo);
+    }
+
+    //Consulta el estado de un trabajo o, si se pide 'desde', una página de su resultado
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        TrabajoPrimos trabajo = GestorTrabajos.instancia().buscar(request.getParameter("id"));
+        if (trabajo == null) {
+            enviarError(response, HttpServletResponse.SC_NOT_FOUND, "No existe el trabajo o ya expiró");
+            return;
+        }
+
+        String desdeStr = request.getParameter("desde");
+        if (desdeStr == null) {
+            escribirEstado(response, trabajo);
+            return;
+        }
+
+        if (trabajo.getEstado() != TrabajoPrimos.Estado.TERMINADO) {
+            enviarError(response, HttpServletResponse.SC_CONFLICT, "El trabajo todavía no terminó: " + trabajo.getEstado());
+            return;
+        }
+        ConjuntoPrimos resultado = trabajo.getResultado();
+        if (resultado == null) {
+            // Los resultados solo viven en CacheResultados, que tiene un presupuesto de memoria
+            enviarError(response, HttpServletResponse.SC_GONE,
+                    "El resultado ya no está en memoria (o no cabía en la caché): cree el trabajo de nuevo");
+            return;
+        }
+        int desde;
+        int cantidad;
+        try {
+            desde = Math.max(0, Integer.parseInt(desdeStr));
+            String cantidadStr = request.getParameter("cantidad");
+            cantidad = (cantidadStr == null) ? CANTIDAD_POR_DEFECTO : Integer.parseInt(cantidadStr);
+            cantidad = Math.max(0, Math.min(cantidad, CANTIDAD_MAXIMA));
+        } catch (NumberFormatException e) {
+            enviarError(response, HttpServletResponse.SC_BAD_REQUEST, "Paginación inválida");
+            return;
+        }
+
+        response.setContentType("application/json;charset=UTF-8");
+        PrintWriter out = response.getWriter();
+        out.print("{\"id\":\"" + trabajo.getId() + "\",\"total\":" + resultado.size() + ",\"desde\":" + desde + ",\"primos\":[");
+        int[] pagina = resultado.pagina(desde, cantidad);
+        for (int i = 0; i < pagina.length; i++) {
+            if (i > 0) {
+                out.print(',');
+            }
+            out.print(pagina[i]);
+        }
+        out.print("]}");
+    }
+
+    //Cancela un trabajo en cola o en curso
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String id = request.getParameter("id");
+        if (!GestorTrabajos.instancia().cancelar(id)) {
+            enviarError(response, HttpServletResponse.SC_NOT_FOUND, "No existe el trabajo o ya expiró");
+            return;
+        }
+        escribirEstado(response, GestorTrabajos.instancia().buscar(id));
+    }
+
+    //Escribe el estado y el progreso del trabajo como JSON
+    private void escribirEstado(HttpServletResponse response, TrabajoPrimos trabajo) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        PrintWriter out = response.getWriter();
+        out.print("{\"id\":\"" + trabajo.getId() + "\"");
+        out.print(",\"inicio\":" + trabajo.getInicio());
+        out.print(",\"fin\":" + trabajo.getFin());
+        out.print(",\"estado\":\"" + trabajo.getEstado() + "\"");
+        out.print(",\"bloques\":" + trabajo.getBloques());
+        out.print(",\"primos\":" + trabajo.getPrimos());
+        out.print(",\"ultimoPrimo\":" + trabajo.getUltimoPrimo());
+        out.print(",\"porcentaje\":" + trabajo.getPorcentaje());
+        if (trabajo.getError() != null) {
+            out.print(",\"error\":\"" + escaparJson(trabajo.getError()) + "\"");
+        }
+        out.print("}");
+    }
+
+    private void enviarError(HttpServletResponse response, int codigo, String mensaje) throws IOException {
+        response.setStatus(codigo);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().print("{\"error\":\"" + escaparJson(mensaje) + "\"}");
+    }
+
+    private static String escaparJson(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (char c : texto.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CacheResultadosTest
+ *
+ * Comprueba que la cobertura por tramos (aciertos exactos, reutilización parcial
+ * y huecos), la eliminación de rangos contenidos y la expulsión LRU devuelven
+ * siempre los mismos primos que la criba de referencia y respetan el presupuesto.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CacheResultadosTest {
+
+    private static final int LIMITE = 300_000;
+
+    private static final int[] PRIMOS =
+            Arrays.stream(PrimosReferencia.primosEntre(2, LIMITE)).mapToInt(p -> (int) p).toArray();
+
+    @Test
+    void coincideConLaReferenciaEnConsultasAlAzar() {
+        // Presupuesto chico: las consultas mezclan aciertos, tramos reutilizados, huecos y expulsiones
+        CacheResultados cache = new CacheResultados(16 * 1024);
+        Random azar = new Random(5);
+        for (int i = 0; i < 3_000; i++) {
+            int inicio = 1 + azar.nextInt(LIMITE);
+            int fin = Math.min(LIMITE, inicio + azar.nextInt(azar.nextBoolean() ? 2_000 : 60_000));
+            assertArrayEquals(primosEntre(inicio, fin), cache.obtenerOCalcular(inicio, fin).aArreglo(),
+                    "obtenerOCalcular(" + inicio + ", " + fin + ")");
+            assertTrue(cache.bytesUsados() <= 16 * 1024, "bytesUsados = " + cache.bytesUsados());
+        }
+        assertEquals(3_000, cache.aciertos() + cache.aciertosParciales() + cache.fallos());
+        assertTrue(cache.aciertosParciales() > 0 && cache.expulsiones() > 0);
+    }
+
+    @Test
+    void aciertosExactosReutilizacionParcialYHuecos() {
+        CacheResultados cache = new CacheResultados(1 << 20);
+
+        ConjuntoPrimos primero = cache.obtenerOCalcular(1, 1_000);
+        assertEquals(1, cache.fallos());
+        assertSame(primero, cache.obtenerOCalcular(1, 1_000));
+        assertEquals(1, cache.aciertos());
+
+        // [500, 2000]: reutiliza [500, 1000] y calcula (1000, 2000]
+        assertArrayEquals(primosEntre(500, 2_000), cache.obtenerOCalcular(500, 2_000).aArreglo());
+        assertEquals(1, cache.aciertosParciales());
+
+        // [1001, 1500] está cubierto por [500, 2000] aunque no sea una clave guardada
+        assertArrayEquals(primosEntre(1_001, 1_500), cache.obtenerOCalcular(1_001, 1_500).aArreglo());
+        assertEquals(2, cache.aciertos());
+
+        // [1, 4000]: dos tramos guardados, un hueco en el medio y otro al final
+        cache.obtenerOCalcular(3_000, 3_500);
+        assertEquals(2, cache.fallos());
+        assertArrayEquals(primosEntre(1, 4_000), cache.obtenerOCalcular(1, 4_000).aArreglo());
+        assertEquals(2, cache.aciertosParciales());
+    }
+
+    @Test
+    void unRangoNuevoReemplazaALosQueContiene() {
+        CacheResultados cache = new CacheResultados(1 << 20);
+        cache.obtenerOCalcular(1, 1_000);
+        cache.obtenerOCalcular(500, 2_000);
+        cache.obtenerOCalcular(3_000, 3_500);
+        cache.obtenerOCalcular(3_400, 9_000); // Se solapa con [1, 4000] sin estar contenido
+
+        ConjuntoPrimos grande = cache.obtenerOCalcular(1, 4_000);
+        assertNull(cache.obtener(1, 1_000));
+        assertNull(cache.obtener(500, 2_000));
+        assertNull(cache.obtener(3_000, 3_500));
+        assertNotNull(cache.obtener(3_400, 9_000));
+        assertSame(grande, cache.obtener(1, 4_000));
+        assertEquals(grande.tamanoEnBytes() + cache.obtener(3_400, 9_000).tamanoEnBytes(), cache.bytesUsados());
+        assertEquals(0, cache.expulsiones());
+    }
+
+    @Test
+    void expulsaLosMenosUsadosDentroDelPresupuesto() {
+        // Cinco resultados de 10.000 números cerca de 10^5 (tamaños parecidos); caben cuatro
+        ConjuntoPrimos[] conjuntos = new ConjuntoPrimos[5];
+        long mayor = 0;
+        for (int i = 0; i < conjuntos.length; i++) {
+            conjuntos[i] = conjunto(100_001 + 20_000 * i, 110_000 + 20_000 * i);
+            mayor = Math.max(mayor, conjuntos[i].tamanoEnBytes());
+        }
+        CacheResultados cache = new CacheResultados(4 * mayor);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(guardar(cache, conjuntos[i]));
+        }
+        assertEquals(0, cache.expulsiones());
+
+        // Leer el primero lo deja como el más reciente: al guardar el quinto se expulsa el segundo
+        assertSame(conjuntos[0], cache.obtener(conjuntos[0].primero() - 1, conjuntos[0].ultimo()));
+        assertTrue(guardar(cache, conjuntos[4]));
+        assertEquals(1, cache.expulsiones());
+        assertNull(cache.obtener(conjuntos[1].primero() - 1, conjuntos[1].ultimo()));
+        long usados = 0;
+        for (int i : new int[]{0, 2, 3, 4}) {
+            assertSame(conjuntos[i], cache.obtener(conjuntos[i].primero() - 1, conjuntos[i].ultimo()));
+            usados += conjuntos[i].tamanoEnBytes();
+        }
+        assertEquals(usados, cache.bytesUsados());
+        assertTrue(cache.bytesUsados() <= 4 * mayor);
+
+        // Un resultado de más de un cuarto del presupuesto no se guarda ni expulsa a nadie
+        ConjuntoPrimos grande = conjunto(1, 200_000);
+        assertTrue(grande.tamanoEnBytes() > cache.maximoPorResultado());
+        assertFalse(cache.guardar(1, 200_000, grande));
+        assertNull(cache.obtener(1, 200_000));
+        assertEquals(1, cache.expulsiones());
+        assertEquals(usados, cache.bytesUsados());
+    }
+
+    //Guarda el conjunto con la clave que usan estas pruebas: [primero - 1, ultimo]
+    private static boolean guardar(CacheResultados cache, ConjuntoPrimos primos) {
+        return cache.guardar(primos.primero() - 1, primos.ultimo(), primos);
+    }
+
+    private static ConjuntoPrimos conjunto(int inicio, int fin) {
+        int[] primos = primosEntre(inicio, fin);
+        return new ConjuntoPrimos.Constructor().agregar(primos, primos.length).construir();
+    }
+
+    private static int[] primosEntre(int inicio, int fin) {
+        int desde = primerIndiceMayorOIgual(inicio);
+        int hasta = primerIndiceMayorOIgual(fin + 1);
+        return Arrays.copyOfRange(PRIMOS, desde, hasta);
+    }
+
+    private static int primerIndiceMayorOIgual(int valor) {
+        int i = Arrays.binarySearch(PRIMOS, valor);
+        return (i >= 0) ? i : -i - 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CalculadoraPrimosTest
+ *
+ * Comprueba que el recorrido por segmentos en el pool entrega los mismos primos,
+ * en el mismo orden, que la criba de referencia y que el recorrido secuencial,
+ * con rangos de 32 y 64 bits, y que se detiene cuando el consumidor termina.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class CalculadoraPrimosTest {
+
+    // Rangos de más de dos segmentos, el último incompleto
+    private static final long ANCHO = 2L * ConfiguracionPrimos.SEGMENTO_MINIMO + 123_457;
+
+    private final CalculadoraPrimos calculadora = new CalculadoraPrimos();
+
+    @Test
+    void enParaleloCoincideConLaReferencia() {
+        int fin = (int) (3 + ANCHO);
+        LongStream.Builder primos = LongStream.builder();
+        calculadora.recorrerPrimosEnParalelo(3, fin, (bloque, cantidad) -> {
+            for (int i = 0; i < cantidad; i++) {
+                primos.add(bloque[i]);
+            }
+        });
+        assertArrayEquals(PrimosReferencia.primosEntre(3, fin), primos.build().toArray());
+    }
+
+    @Test
+    void enParaleloCoincideConElRecorridoSecuencialEnSesentaYCuatroBits() {
+        // Una ventana que cruza Integer.MAX_VALUE y otra cerca de 10^12 (criba parcial con Miller-Rabin)
+        for (long desde : new long[]{Integer.MAX_VALUE - ANCHO / 2, 1_000_000_000_000L}) {
+            long hasta = desde + ANCHO;
+            LongStream.Builder secuencial = LongStream.builder();
+            calculadora.recorrerPrimosLargos(desde, hasta, agregarA(secuencial));
+            LongStream.Builder paralelo = LongStream.builder();
+            calculadora.recorrerPrimosLargosEnParalelo(desde, hasta, agregarA(paralelo));
+            assertArrayEquals(secuencial.build().toArray(), paralelo.build().toArray(), "desde " + desde);
+        }
+    }
+
+    @Test
+    void terminaEnLongMaxValueSinDesbordar() {
+        long desde = Long.MAX_VALUE - ANCHO;
+        long[] cantidad = {0};
+        long[] ultimo = {0};
+        calculadora.recorrerPrimosLargosEnParalelo(desde, Long.MAX_VALUE, (bloque, n) -> {
+            cantidad[0] += n;
+            ultimo[0] = bloque[n - 1];
+        });
+        long[] secuencial = {0};
+        CribaLarga.cribar(desde, Long.MAX_VALUE, (bloque, n) -> secuencial[0] += n);
+        assertEquals(secuencial[0], cantidad[0]);
+        assertEquals(9_223_372_036_854_775_783L, ultimo[0]);
+    }
+
+    @Test
+    void seDetieneCuandoElConsumidorTermina() {
+        int[] bloques = {0};
+        calculadora.recorrerPrimosEnParalelo(1, Integer.MAX_VALUE, new CribaSegmentada.ConsumidorSegmento() {
+            @Override
+            public void aceptar(int[] primos, int cantidad) {
+                bloques[0]++;
+            }
+
+            @Override
+            public boolean terminado() {
+                return bloques[0] == 3;
+            }
+        });
+        assertEquals(3, bloques[0]);
+
+        // El cupo del pool se devolvió: otro recorrido paralelo funciona igual
+        long[] cantidad = {0};
+        calculadora.recorrerPrimosEnParalelo(1, (int) ANCHO, (primos, n) -> cantidad[0] += n);
+        assertEquals(PrimosReferencia.primosEntre(1, ANCHO).length, cantidad[0]);
+    }
+
+    @Test
+    void rangoVacioCuandoDesdePasaDelFin() {
+        // Una página "Ver más" que empieza después del fin (3000000000 no cabe en un int)
+        long[] cantidad = {0};
+        calculadora.recorrerPrimosLargos(3_000_000_000L, 100, (primos, n) -> cantidad[0] += n);
+        calculadora.recorrerPrimosLargos(101, 100, (primos, n) -> cantidad[0] += n);
+        calculadora.recorrerPrimosLargosEnParalelo(3_000_000_000L, 100, (primos, n) -> cantidad[0] += n);
+        assertEquals(0, cantidad[0]);
+    }
+
+    private static CribaLarga.ConsumidorSegmentoLargo agregarA(LongStream.Builder destino) {
+        return (bloque, cantidad) -> {
+            for (int i = 0; i < cantidad; i++) {
+                destino.add(bloque[i]);
+            }
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ConjuntoPrimosTest
+ *
+ * Comprueba que la codificación varint de los saltos y los puntos de control
+ * devuelven exactamente lo que se agregó, en cualquier posición y página.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import org.junit.jupiter.api.Test;
+
+class ConjuntoPrimosTest {
+
+    private static final int[] PRIMOS =
+            Arrays.stream(PrimosReferencia.primosEntre(2, 1_000_000)).mapToInt(p -> (int) p).toArray();
+
+    @Test
+    void guardaYDevuelveTodosLosPrimos() {
+        ConjuntoPrimos conjunto = construir(PRIMOS);
+
+        assertEquals(78_498, conjunto.size());
+        assertEquals(2, conjunto.primero());
+        assertEquals(999_983, conjunto.ultimo());
+        assertArrayEquals(PRIMOS, conjunto.aArreglo());
+    }
+
+    @Test
+    void indiceDeEncuentraElPrimerPrimoMayorOIgual() {
+        ConjuntoPrimos conjunto = construir(PRIMOS);
+
+        // Valores en puntos de control, entre ellos, antes del primero y después del último
+        for (int valor = 0; valor <= 1_000_010; valor += 997) {
+            int esperado = primerIndiceMayorOIgual(PRIMOS, valor);
+            assertEquals(esperado, conjunto.indiceDe(valor), "indiceDe(" + valor + ")");
+        }
+        for (int k = 0; k < PRIMOS.length; k += ConjuntoPrimos.PASO_INDICE) {
+            assertEquals(k, conjunto.indiceDe(PRIMOS[k]));
+            assertEquals(k + 1 < PRIMOS.length ? k + 1 : PRIMOS.length, conjunto.indiceDe(PRIMOS[k] + 1));
+        }
+    }
+
+    @Test
+    void paginasEIteradoresDesdeCualquierPosicion() {
+        ConjuntoPrimos conjunto = construir(PRIMOS);
+
+        for (int desde : new int[]{0, 1, 127, 128, 129, 40_000, PRIMOS.length - 3}) {
+            int[] pagina = conjunto.pagina(desde, 300);
+            int hasta = Math.min(PRIMOS.length, desde + 300);
+            assertArrayEquals(Arrays.copyOfRange(PRIMOS, desde, hasta), pagina, "pagina(" + desde + ")");
+
+            PrimitiveIterator.OfInt it = conjunto.iterador(desde);
+            for (int i = desde; i < hasta; i++) {
+                assertEquals(PRIMOS[i], it.nextInt());
+            }
+        }
+        assertEquals(0, conjunto.pagina(PRIMOS.length, 10).length);
+        assertThrows(IndexOutOfBoundsException.class, () -> conjunto.iterador(-1));
+    }
+
+    @Test
+    void saltosGrandesUsanVariosBytes() {
+        // No son primos, pero los saltos pares ejercitan varints de 1 a 5 bytes
+        int[] valores = {2, 3, 5, 261, 16_647, 2_113_671, 2_000_000_001, Integer.MAX_VALUE};
+        ConjuntoPrimos conjunto = construir(valores);
+
+        assertArrayEquals(valores, conjunto.aArreglo());
+        assertEquals(6, conjunto.indiceDe(2_000_000_000));
+        assertEquals(7, conjunto.indiceDe(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void tamanoEstimadoYCapacidadReservada() {
+        ConjuntoPrimos.Constructor constructor = new ConjuntoPrimos.Constructor(PRIMOS.length);
+        ConjuntoPrimos conjunto = constructor.agregar(PRIMOS, PRIMOS.length).construir();
+
+        assertArrayEquals(PRIMOS, conjunto.aArreglo());
+        assertEquals(ConjuntoPrimos.tamanoEstimado(PRIMOS.length), conjunto.tamanoEnBytes());
+        assertEquals(ConjuntoPrimos.tamanoEstimado(0), ConjuntoPrimos.VACIO.tamanoEnBytes());
+    }
+
+    @Test
+    void rechazaPrimosFueraDeOrden() {
+        ConjuntoPrimos.Constructor constructor = new ConjuntoPrimos.Constructor().agregar(7);
+        assertThrows(IllegalArgumentException.class, () -> constructor.agregar(5));
+        assertThrows(IllegalArgumentException.class, () -> constructor.agregar(10));
+    }
+
+    @Test
+    void conjuntoVacio() {
+        assertFalse(ConjuntoPrimos.VACIO.iterator().hasNext());
+        assertEquals(0, ConjuntoPrimos.VACIO.indiceDe(5));
+        assertEquals(0, ConjuntoPrimos.VACIO.pagina(0, 10).length);
+    }
+
+    @Test
+    void sobreviveALaSerializacion() throws Exception {
+        ConjuntoPrimos conjunto = construir(PRIMOS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(conjunto);
+        }
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            ConjuntoPrimos leido = (ConjuntoPrimos) entrada.readObject();
+            assertArrayEquals(PRIMOS, leido.aArreglo());
+            assertEquals(conjunto.indiceDe(500_000), leido.indiceDe(500_000));
+        }
+    }
+
+    private static ConjuntoPrimos construir(int[] primos) {
+        return new ConjuntoPrimos.Constructor().agregar(primos, primos.length).construir();
+    }
+
+    private static int primerIndiceMayorOIgual(int[] primos, int valor) {
+        int i = Arrays.binarySearch(primos, valor);
+        return (i >= 0) ? i : -i - 1;
+    }
+}
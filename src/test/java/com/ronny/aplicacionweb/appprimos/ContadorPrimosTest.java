@@ -0,0 +1,101 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: ContadorPrimosTest
+ *
+ * Comprueba pi(x) (Lucy_Hedgehog con división por recíproco y tramos de cocientes)
+ * con los valores conocidos de pi(10^k) y con la criba de referencia, y el
+ * conteo (también cancelado) y el resumen de rangos.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ContadorPrimosTest {
+
+    // pi(10^k) para k = 0..12
+    private static final long[] PI_POTENCIAS_DE_DIEZ = {0, 4, 25, 168, 1_229, 9_592, 78_498, 664_579,
+            5_761_455, 50_847_534, 455_052_511, 4_118_054_813L, 37_607_912_018L};
+
+    @Test
+    void piDePotenciasDeDiez() {
+        long n = 1;
+        for (long esperado : PI_POTENCIAS_DE_DIEZ) {
+            assertEquals(esperado, ContadorPrimos.pi(n), "pi(" + n + ")");
+            n *= 10;
+        }
+    }
+
+    @Test
+    void piCoincideConLaCriba() {
+        long[] primos = PrimosReferencia.primosEntre(2, 2_000_000);
+        // Todos los n pequeños (raíces y cuadrados de primos incluidos) y luego saltos irregulares
+        int cantidad = 0;
+        for (int n = 0; n <= 2_000_000; n += (n < 20_000) ? 1 : 7_919) {
+            while (cantidad < primos.length && primos[cantidad] <= n) {
+                cantidad++;
+            }
+            assertEquals(cantidad, ContadorPrimos.pi(n), "pi(" + n + ")");
+        }
+    }
+
+    @Test
+    void piCercaDeCuadradosYConCocientesDeDistintaLongitud() {
+        // Alrededor de p² el último primo base entra o no en el cálculo:
+        // pi(n) - pi(base) tiene que ser la cantidad de primos de (base, n]
+        for (long p : new long[]{1_009, 31_607, 99_991}) {
+            long base = p * p - 100;
+            long piBase = ContadorPrimos.pi(base);
+            for (long n = p * p - 2; n <= p * p + 2; n++) {
+                long esperado = piBase + PrimosReferencia.primosEntre(base + 1, n).length;
+                assertEquals(esperado, ContadorPrimos.pi(n), "pi(" + n + ")");
+            }
+        }
+    }
+
+    @Test
+    void contarCoincideConLaReferencia() {
+        Random azar = new Random(12);
+        for (int i = 0; i < 15; i++) {
+            long inicio = 1 + (long) (azar.nextDouble() * 5e9);
+            long fin = inicio + azar.nextInt(3_000_000);
+            assertEquals(PrimosReferencia.primosEntre(inicio, fin).length, ContadorPrimos.contar(inicio, fin),
+                    "contar(" + inicio + ", " + fin + ")");
+        }
+        // Rango ancho: pi(fin) - pi(inicio - 1)
+        assertEquals(PI_POTENCIAS_DE_DIEZ[9] - PI_POTENCIAS_DE_DIEZ[8], ContadorPrimos.contar(100_000_001, 1_000_000_000));
+        assertEquals(0, ContadorPrimos.contar(24, 28));
+        assertEquals(0, ContadorPrimos.contar(10, 5));
+    }
+
+    @Test
+    void contarSeDetieneSiLaPeticionSeCancela() {
+        // Por encima de MAXIMO_PI no hay pi(x): el conteo recorre el rango y se detiene entre bloques
+        Cancelacion cancelacion = new Cancelacion();
+        cancelacion.cancelar(Cancelacion.Motivo.TIEMPO);
+        long inicio = ConfiguracionPrimos.MAXIMO_PI + 1;
+        long cantidad = ContadorPrimos.contar(inicio, Long.MAX_VALUE, cancelacion);
+        assertTrue(cantidad < 1_000_000, "cantidad = " + cantidad);
+        assertEquals(Cancelacion.Motivo.TIEMPO, cancelacion.motivo());
+    }
+
+    @Test
+    void resumenDeUnRango() {
+        ResumenPrimos resumen = ResumenPrimos.calcular(1, 100);
+        assertEquals(25, resumen.getCantidad());
+        assertEquals(2, resumen.getPrimero());
+        assertEquals(97, resumen.getUltimo());
+        assertEquals(8, resumen.getMayorSalto());
+        assertEquals(89, resumen.getSaltoDesde());
+        assertEquals(8, resumen.getGemelos());
+
+        // Primer salto de 114 (entre 492113 y 492227) y los gemelos hasta 10^6
+        resumen = ResumenPrimos.calcular(1, 1_000_000);
+        assertEquals(78_498, resumen.getCantidad());
+        assertEquals(114, resumen.getMayorSalto());
+        assertEquals(492_113, resumen.getSaltoDesde());
+        assertEquals(8_169, resumen.getGemelos());
+    }
+}
@@ -0,0 +1,81 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CribaLargaTest
+ *
+ * Compara la criba de 64 bits con resultados de referencia en sus dos modos:
+ * criba completa (B llega a la raíz de fin) y criba parcial con Miller-Rabin,
+ * incluidas ventanas que terminan en Long.MAX_VALUE.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class CribaLargaTest {
+
+    @Test
+    void cribaCompletaAlrededorDeIntegerMaxValue() {
+        long desde = Integer.MAX_VALUE - 300_000L;
+        long hasta = Integer.MAX_VALUE + 300_000L;
+        assertArrayEquals(PrimosReferencia.primosEntre(desde, hasta), cribar(desde, hasta));
+    }
+
+    @Test
+    void rangoQueEmpiezaEnUno() {
+        assertArrayEquals(PrimosReferencia.primosEntre(2, 1_000_000), cribar(1, 1_000_000));
+        assertArrayEquals(new long[]{2}, cribar(1, 2));
+        assertArrayEquals(new long[0], cribar(24, 28));
+    }
+
+    @Test
+    void cribaParcialCercaDeDiezALaDoce() {
+        // Ventana angosta: B < raíz(fin), los sobrevivientes pasan por Miller-Rabin
+        long desde = 1_000_000_000_000L - 100_000;
+        long hasta = 1_000_000_000_000L + 100_000;
+        assertArrayEquals(PrimosReferencia.primosEntre(desde, hasta), cribar(desde, hasta));
+    }
+
+    @Test
+    void cercaDeDiezALaDieciocho() {
+        long desde = 1_000_000_000_000_000_000L;
+        long hasta = desde + 30_000;
+        assertArrayEquals(PrimosReferencia.primosEntreGrandes(desde, hasta), cribar(desde, hasta));
+    }
+
+    @Test
+    void terminaEnLongMaxValueSinDesbordar() {
+        long desde = Long.MAX_VALUE - 30_000;
+        long[] primos = cribar(desde, Long.MAX_VALUE);
+        assertArrayEquals(PrimosReferencia.primosEntreGrandes(desde, Long.MAX_VALUE), primos);
+        assertEquals(9_223_372_036_854_775_783L, primos[primos.length - 1]);
+    }
+
+    @Test
+    void seDetieneCuandoElConsumidorTermina() {
+        int[] bloques = {0};
+        CribaLarga.cribar(1, 100_000_000, new CribaLarga.ConsumidorSegmentoLargo() {
+            @Override
+            public void aceptar(long[] primos, int cantidad) {
+                bloques[0]++;
+            }
+
+            @Override
+            public boolean terminado() {
+                return bloques[0] == 2;
+            }
+        });
+        assertEquals(2, bloques[0]);
+    }
+
+    private static long[] cribar(long desde, long hasta) {
+        LongStream.Builder primos = LongStream.builder();
+        CribaLarga.cribar(desde, hasta, (bloque, cantidad) -> {
+            for (int i = 0; i < cantidad; i++) {
+                primos.add(bloque[i]);
+            }
+        });
+        return primos.build().toArray();
+    }
+}
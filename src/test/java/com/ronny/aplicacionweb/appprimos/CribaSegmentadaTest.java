@@ -0,0 +1,93 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: CribaSegmentadaTest
+ *
+ * Compara cribar y contar con la criba de referencia en bordes de la rueda,
+ * de bloque y en ventanas que terminan en Integer.MAX_VALUE. Se ejecuta dos
+ * veces (ver pom.xml): con la ruta vectorial y en una JVM sin el módulo
+ * jdk.incubator.vector, donde la criba debe detectarlo y usar la ruta escalar.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class CribaSegmentadaTest {
+
+    @Test
+    void rangosPequenosYBordesDeLaRueda() {
+        CribaSegmentada criba = new CribaSegmentada(100_000);
+        int[] extremos = {0, 1, 2, 3, 4, 5, 6, 7, 23, 29, 30, 31, 59, 60, 61, 89, 90, 91, 120, 121};
+        for (int inicio : extremos) {
+            for (int fin : extremos) {
+                comparar(criba, inicio, fin);
+            }
+        }
+        comparar(criba, 1, 100_000);
+    }
+
+    @Test
+    void variosBloquesYVentanasAlAzar() {
+        // Más de un bloque de 30 * BYTES_POR_BLOQUE números
+        comparar(new CribaSegmentada(3_000_000), 1, 3_000_000);
+
+        Random azar = new Random(17);
+        for (int i = 0; i < 20; i++) {
+            int inicio = 1 + azar.nextInt(2_000_000_000);
+            int fin = inicio + azar.nextInt(1_500_000);
+            comparar(new CribaSegmentada(fin), inicio, fin);
+        }
+    }
+
+    @Test
+    void ventanasQueTerminanEnIntegerMaxValue() {
+        CribaSegmentada criba = new CribaSegmentada(Integer.MAX_VALUE);
+        comparar(criba, Integer.MAX_VALUE - 300_000, Integer.MAX_VALUE);
+        comparar(criba, Integer.MAX_VALUE - 1, Integer.MAX_VALUE);
+        comparar(criba, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertEquals(1, criba.contar(Integer.MAX_VALUE, Integer.MAX_VALUE)); // 2^31 - 1 es primo
+    }
+
+    @Test
+    void seDetieneCuandoElConsumidorTermina() {
+        int[] bloques = {0};
+        new CribaSegmentada(100_000_000).cribar(1, 100_000_000, new CribaSegmentada.ConsumidorSegmento() {
+            @Override
+            public void aceptar(int[] primos, int cantidad) {
+                bloques[0]++;
+            }
+
+            @Override
+            public boolean terminado() {
+                return bloques[0] == 2;
+            }
+        });
+        assertEquals(2, bloques[0]);
+    }
+
+    @Test
+    void sinElModuloUsaLaRutaEscalar() {
+        // Solo en la ejecución criba-escalar: cargar CribaSegmentada no debe fallar sin el módulo
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty(),
+                "La JVM de pruebas tiene jdk.incubator.vector");
+        assertFalse(CribaSegmentada.usaVectorial());
+    }
+
+    private static void comparar(CribaSegmentada criba, int inicio, int fin) {
+        long[] esperados = PrimosReferencia.primosEntre(inicio, fin);
+        LongStream.Builder encontrados = LongStream.builder();
+        criba.cribar(inicio, fin, (primos, cantidad) -> {
+            for (int i = 0; i < cantidad; i++) {
+                encontrados.add(primos[i]);
+            }
+        });
+        String rango = "(" + inicio + ", " + fin + ")";
+        assertArrayEquals(esperados, encontrados.build().toArray(), "cribar" + rango);
+        assertEquals(esperados.length, criba.contar(inicio, fin), "contar" + rango);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: HistogramaTest
+ *
+ * Comprueba que los límites publicados caen al final de una cubeta y que la
+ * cantidad acumulada hasta cada uno es exacta, comparando con los valores
+ * registrados (al azar, de varios órdenes de magnitud).
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HistogramaTest {
+
+    @Test
+    void limitesPorPotenciaDeDos() {
+        assertArrayEquals(new long[]{1, 3, 7, 15}, Histograma.limites(1, 4, 1));
+        assertArrayEquals(new long[]{0, 1, 2, 3, 5, 7, 11, 15, 23, 31}, Histograma.limites(0, 5, 2));
+        long[] grandes = Histograma.limites(16, 62, 4);
+        assertEquals((1L << 16) - 1, grandes[0]);
+        assertEquals((1L << 16) + (1L << 14) - 1, grandes[1]);
+        assertEquals((1L << 62) - 1, grandes[grandes.length - 1]);
+    }
+
+    @Test
+    void acumuladosExactosEnCadaLimite() {
+        Histograma histograma = new Histograma();
+        Random azar = new Random(3);
+        long[] valores = new long[20_000];
+        long suma = 0;
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = azar.nextLong() >>> (1 + azar.nextInt(63)); // De 0 a 2^62
+            histograma.registrar(valores[i]);
+            suma += valores[i];
+        }
+        histograma.registrar(-5); // Cuenta como 0
+
+        for (long[] limites : new long[][]{Histograma.limites(0, 62, 1), Histograma.limites(16, 37, 2),
+                Histograma.limites(4, 20, 16)}) {
+            long[] acumulados = histograma.acumulados(limites);
+            for (int k = 0; k < limites.length; k++) {
+                long esperado = 1; // El -5
+                for (long valor : valores) {
+                    esperado += (valor <= limites[k]) ? 1 : 0;
+                }
+                assertEquals(esperado, acumulados[k], "le=" + limites[k]);
+            }
+            assertEquals(valores.length + 1, acumulados[limites.length]);
+        }
+        assertEquals(suma, histograma.suma());
+    }
+}
@@ -0,0 +1,91 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: IndicePrimosTest
+ *
+ * Construye un índice pequeño en un directorio temporal y compara sus conteos
+ * (rango por bloque + popcount) y su recorrido con la criba de referencia.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IndicePrimosTest {
+
+    // Varios bloques de BITS_POR_BLOQUE impares, el último incompleto
+    private static final int LIMITE = 5 * 2 * IndicePrimos.BITS_POR_BLOQUE + 12_345;
+
+    @TempDir
+    static Path directorio;
+
+    private static IndicePrimos indice;
+    private static long[] primos;
+
+    @BeforeAll
+    static void construir() throws Exception {
+        indice = IndicePrimos.cargarOConstruir(directorio.resolve("primos.idx"), LIMITE);
+        primos = PrimosReferencia.primosEntre(2, LIMITE);
+    }
+
+    @Test
+    void contarCoincideConLaReferencia() {
+        // Bordes de bloque, de palabra y extremos del índice
+        int bloque = 2 * IndicePrimos.BITS_POR_BLOQUE;
+        int[] bordes = {1, 2, 3, 63, 64, 127, 128, 129, bloque - 1, bloque, bloque + 1, 3 * bloque + 1, LIMITE - 1, LIMITE};
+        for (int inicio : bordes) {
+            for (int fin : bordes) {
+                assertEquals(contarReferencia(inicio, fin), indice.contar(inicio, fin), "contar(" + inicio + ", " + fin + ")");
+            }
+        }
+        Random azar = new Random(6);
+        for (int i = 0; i < 2_000; i++) {
+            int a = 1 + azar.nextInt(LIMITE);
+            int b = 1 + azar.nextInt(LIMITE);
+            int inicio = Math.min(a, b);
+            int fin = Math.max(a, b);
+            assertEquals(contarReferencia(inicio, fin), indice.contar(inicio, fin), "contar(" + inicio + ", " + fin + ")");
+        }
+    }
+
+    @Test
+    void recorrerDevuelveLosMismosPrimos() {
+        for (int[] rango : new int[][]{{1, LIMITE}, {2, 2}, {4, 4}, {1_000, 140_000}, {LIMITE - 500, LIMITE}}) {
+            LongStream.Builder encontrados = LongStream.builder();
+            indice.recorrer(rango[0], rango[1], (bloque, cantidad) -> {
+                for (int i = 0; i < cantidad; i++) {
+                    encontrados.add(bloque[i]);
+                }
+            });
+            long[] esperados = Arrays.stream(primos).filter(p -> p >= rango[0] && p <= rango[1]).toArray();
+            assertArrayEquals(esperados, encontrados.build().toArray(), "recorrer(" + rango[0] + ", " + rango[1] + ")");
+        }
+    }
+
+    @Test
+    void seReutilizaElArchivoYSeRechazanRangosFueraDelLimite() throws Exception {
+        Path archivo = directorio.resolve("primos.idx");
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+        IndicePrimos otra = IndicePrimos.cargarOConstruir(archivo, LIMITE);
+
+        assertEquals(modificado, Files.getLastModifiedTime(archivo).toMillis());
+        assertEquals(primos.length, otra.contar(1, LIMITE));
+        assertTrue(otra.cubre(LIMITE));
+        assertFalse(otra.cubre(LIMITE + 1));
+        assertThrows(IllegalArgumentException.class, () -> otra.contar(1, LIMITE + 1));
+    }
+
+    private static long contarReferencia(int inicio, int fin) {
+        return Arrays.stream(primos).filter(p -> p >= inicio && p <= fin).count();
+    }
+}
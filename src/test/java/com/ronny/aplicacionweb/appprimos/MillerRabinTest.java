@@ -0,0 +1,76 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: MillerRabinTest
+ *
+ * Comprueba la prueba de primalidad con los compuestos que engañan a las pruebas
+ * débiles (Carmichael y pseudoprimos fuertes) y la compara con BigInteger en
+ * números de todo el rango de long.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MillerRabinTest {
+
+    @Test
+    void coincideConLaCribaHastaUnMillon() {
+        long[] primos = PrimosReferencia.primosEntre(2, 1_000_000);
+        int siguiente = 0;
+        for (long n = -5; n <= 1_000_000; n++) {
+            boolean esperado = siguiente < primos.length && primos[siguiente] == n;
+            if (esperado) {
+                siguiente++;
+            }
+            assertEquals(esperado, MillerRabin.esPrimo(n), "esPrimo(" + n + ")");
+        }
+    }
+
+    @Test
+    void rechazaNumerosDeCarmichael() {
+        long[] carmichael = {561, 1105, 1729, 2465, 2821, 6601, 8911, 41041, 825265, 321197185,
+                5394826801L, 232250619601L, 9746347772161L};
+        for (long n : carmichael) {
+            assertFalse(MillerRabin.esPrimo(n), "Carmichael " + n);
+        }
+    }
+
+    @Test
+    void rechazaPseudoprimosFuertes() {
+        // Pseudoprimos fuertes para las primeras bases primas (2; 2 y 3; ... hasta 2..23)
+        long[] pseudoprimos = {2047, 3277, 4033, 4681, 8321, 1373653, 25326001, 3215031751L,
+                2152302898747L, 3474749660383L, 341550071728321L, 3825123056546413051L};
+        for (long n : pseudoprimos) {
+            assertFalse(MillerRabin.esPrimo(n), "pseudoprimo fuerte " + n);
+        }
+    }
+
+    @Test
+    void primosYCompuestosCercaDeLongMaxValue() {
+        assertTrue(MillerRabin.esPrimo(9_223_372_036_854_775_783L)); // Mayor primo menor que 2^63
+        assertTrue(MillerRabin.esPrimo((1L << 61) - 1));            // Primo de Mersenne
+        assertFalse(MillerRabin.esPrimo(Long.MAX_VALUE));          // 7^2 * 73 * 127 * 337 * 92737 * 649657
+        assertFalse(MillerRabin.esPrimo(3_037_000_493L * 3_037_000_493L)); // Cuadrado de un primo cerca de la raíz de 2^63
+    }
+
+    @Test
+    void coincideConBigIntegerEnLongsAlAzar() {
+        Random azar = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            // Impares al azar de 20 a 63 bits
+            long n = (azar.nextLong() >>> (1 + azar.nextInt(44))) | 1;
+            assertEquals(BigInteger.valueOf(n).isProbablePrime(64), MillerRabin.esPrimo(n), "esPrimo(" + n + ")");
+        }
+        for (int i = 0; i < 2_000; i++) {
+            // Producto de dos primos de 31 bits: el caso difícil (sin factores pequeños)
+            long p = BigInteger.valueOf(1L << 30 | azar.nextInt(1 << 30)).nextProbablePrime().longValue();
+            long q = BigInteger.valueOf(1L << 30 | azar.nextInt(1 << 30)).nextProbablePrime().longValue();
+            assertFalse(MillerRabin.esPrimo(p * q), p + " * " + q);
+            assertTrue(MillerRabin.esPrimo(p), "primo " + p);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: NucleoVectorialTest
+ *
+ * Compara las operaciones SIMD con su equivalente escalar en arreglos al azar,
+ * con longitudes que no son múltiplo del registro para cubrir el resto.
+ * Se omite si la JVM no tiene el módulo de vectores o registros útiles.
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class NucleoVectorialTest {
+
+    @BeforeAll
+    static void requiereModulo() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "La JVM de pruebas no tiene jdk.incubator.vector");
+        assumeTrue(NucleoVectorial.disponible(), "Registros SIMD de menos de 128 bits");
+    }
+
+    @Test
+    void combinarEsElAndByteAByte() {
+        Random azar = new Random(7);
+        for (int cantidad : new int[]{0, 1, 15, 16, 17, 63, 64, 65, 1_000, 32_768}) {
+            byte[] a = bytesAlAzar(azar, cantidad + 100);
+            byte[] b = bytesAlAzar(azar, cantidad + 100);
+            int desdeA = azar.nextInt(100);
+            int desdeB = azar.nextInt(100);
+
+            byte[] esperado = new byte[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                esperado[i] = (byte) (a[desdeA + i] & b[desdeB + i]);
+            }
+            byte[] destino = new byte[cantidad];
+            NucleoVectorial.combinar(a, desdeA, b, desdeB, destino, cantidad);
+            assertArrayEquals(esperado, destino, "combinar(" + cantidad + ")");
+        }
+    }
+
+    @Test
+    void contarBitsCoincideConBitCount() {
+        Random azar = new Random(8);
+        for (int cantidad : new int[]{0, 1, 7, 8, 31, 32, 33, 64, 100, 32_768}) {
+            // Como en la criba: 8 bytes en 0 después de 'cantidad'
+            byte[] datos = new byte[cantidad + 8];
+            System.arraycopy(bytesAlAzar(azar, cantidad), 0, datos, 0, cantidad);
+
+            long esperado = 0;
+            for (int i = 0; i < cantidad; i++) {
+                esperado += Integer.bitCount(datos[i] & 0xFF);
+            }
+            assertEquals(esperado, NucleoVectorial.contarBits(datos, cantidad), "contarBits(" + cantidad + ")");
+        }
+    }
+
+    private static byte[] bytesAlAzar(Random azar, int cantidad) {
+        byte[] bytes = new byte[cantidad];
+        azar.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ronny.aplicacionweb.appprimos;
+/*
+ * Descripcion: * CLASE: PrimosReferencia
+ *
+ * Resultados de referencia para las pruebas, calculados de la forma más simple
+ * posible (sin rueda, sin bloques, sin Miller-Rabin propio), para que un error
+ * en los núcleos optimizados no se repita también aquí.
+ */
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+final class PrimosReferencia {
+
+    private PrimosReferencia() {
+        // Clase de utilidades: no se instancia
+    }
+
+    //Primos de [desde, hasta] con una criba de ventana que tacha los múltiplos de cada d <= raíz(hasta)
+    //(todos los d, primos o no: más lento, pero sin nada que pueda fallar)
+    static long[] primosEntre(long desde, long hasta) {
+        desde = Math.max(desde, 2);
+        if (hasta < desde) {
+            return new long[0];
+        }
+        int ancho = (int) (hasta - desde + 1);
+        boolean[] compuesto = new boolean[ancho];
+        for (long d = 2; d * d <= hasta; d++) {
+            long multiplo = Math.max(d * d, (desde + d - 1) / d * d);
+            for (long m = multiplo; m <= hasta; m += d) {
+                compuesto[(int) (m - desde)] = true;
+            }
+        }
+        long[] primos = new long[ancho];
+        int cantidad = 0;
+        for (int i = 0; i < ancho; i++) {
+            if (!compuesto[i]) {
+                primos[cantidad++] = desde + i;
+            }
+        }
+        return Arrays.copyOf(primos, cantidad);
+    }
+
+    //Primos de [desde, hasta] con BigInteger.isProbablePrime, para ventanas de 64 bits
+    //donde la criba de referencia no alcanza (error menor que 2^-100)
+    static long[] primosEntreGrandes(long desde, long hasta) {
+        long[] primos = new long[(int) (hasta - desde + 1)];
+        int cantidad = 0;
+        for (long n = desde; n <= hasta && n > 0; n++) {
+            if (BigInteger.valueOf(n).isProbablePrime(100)) {
+                primos[cantidad++] = n;
+            }
+        }
+        return Arrays.copyOf(primos, cantidad);
+    }
+
+    //Pasa un arreglo de int a long para compararlo con los de referencia
+    static long[] aLong(int[] valores) {
+        return Arrays.stream(valores).asLongStream().toArray();
+    }
+}